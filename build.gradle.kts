@@ -62,10 +62,23 @@ repositories {
     }
 }
 
+// Offline config tools (com.ivillager.tools): built against the plugin classes but kept out of the plugin jar.
+val tools by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + configurations.compileClasspath.get()
+    runtimeClasspath += output + compileClasspath
+}
+
+sourceSets.test {
+    compileClasspath += tools.output
+    runtimeClasspath += tools.output
+}
+
 dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.11-R0.1-SNAPSHOT")
     testImplementation(platform("org.junit:junit-bom:5.10.2"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    // ShopFileEditorTest; the server provides SnakeYAML at runtime (same version as Paper's)
+    testImplementation("org.yaml:snakeyaml:2.2")
 }
 
 tasks.test {
@@ -77,3 +90,19 @@ tasks.processResources {
         expand("version" to version)
     }
 }
+
+// Offline shop config check for CI: ./gradlew validateShops -Pconfig=path/to/config.yml
+// Optional: -PshopsDir=dir -Pregistry=dir -Preport=report.json -Poutput=compiled.yml -Pstrict
+tasks.register<JavaExec>("validateShops") {
+    group = "verification"
+    description = "Validates shop config without a server (defaults to the bundled config.yml)."
+    classpath = tools.runtimeClasspath
+    mainClass.set("com.ivillager.tools.ShopConfigCompiler")
+    doFirst {
+        val cli = mutableListOf(project.findProperty("config")?.toString() ?: "src/main/resources/config.yml")
+        listOf("shopsDir" to "--shops-dir", "registry" to "--registry", "report" to "--report", "output" to "--output")
+            .forEach { (prop, flag) -> project.findProperty(prop)?.let { cli += listOf(flag, it.toString()) } }
+        if (project.hasProperty("strict")) cli += "--strict"
+        args(cli)
+    }
+}
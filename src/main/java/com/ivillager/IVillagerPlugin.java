@@ -1,12 +1,32 @@
 package com.ivillager;
 
+import com.ivillager.analytics.ShopAnalytics;
+import com.ivillager.analytics.StatsSnapshot;
+import com.ivillager.api.ShopEventStream;
 import com.ivillager.command.IVillagerCommand;
 import com.ivillager.config.ConfigLoader;
+import com.ivillager.config.PluginSettings;
+import com.ivillager.config.SyncSettings;
+import com.ivillager.events.EventDispatcher;
+import com.ivillager.jfr.ConfigPhaseEvent;
+import com.ivillager.shop.AdmissionController;
+import com.ivillager.shop.BulkOpen;
+import com.ivillager.shop.ShopListener;
 import com.ivillager.shop.ShopManager;
+import com.ivillager.shop.ShopRegistry;
+import com.ivillager.sync.CatalogSync;
+import com.ivillager.sync.DirectoryTransport;
+import com.ivillager.sync.PluginMessageTransport;
+import com.ivillager.sync.SyncTransport;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * IVillager: opens the vanilla villager trading UI as a configurable shop.
@@ -14,64 +34,208 @@ import java.util.Collection;
  */
 public final class IVillagerPlugin extends JavaPlugin {
 
+    /** Outcome of creating or deleting a shop. */
+    public enum ShopEdit {
+        /** config.yml was changed and the shops were reloaded. */
+        APPLIED,
+        /** config.yml was not changed (name taken or unknown, or the file could not be written). */
+        NOT_SAVED,
+        /** config.yml was changed but could not be loaded again; the previous shops stay active. */
+        NOT_LOADED
+    }
+
+    /** How often restocked stock counters are swept (5 minutes). */
+    private static final long STOCK_SWEEP_TICKS = 5L * 60L * 20L;
+
     private ConfigLoader configLoader;
     private ShopManager shopManager;
+    private PluginSettings settings = PluginSettings.DEFAULTS;
+    private ShopAnalytics analytics;
+    private BukkitTask snapshotTask;
+    private int snapshotMinutes;
+    private AdmissionController admission;
+    private CatalogSync sync;
+    private EventDispatcher events;
+    /** True while the active generation came from /ivillager rollback rather than config.yml. */
+    private boolean rolledBack;
 
     @Override
     public void onEnable() {
         configLoader = new ConfigLoader(this);
-        shopManager = new ShopManager();
+        analytics = new ShopAnalytics();
+        events = new EventDispatcher(this);
+        shopManager = new ShopManager(analytics, events);
+        admission = new AdmissionController(settings.getMsptThreshold(), settings.getTickBudgetMs(), settings.getMaxQueue());
         loadShops();
+        startSync(settings.getSync());
+        getServer().getScheduler().runTaskTimer(this, admission, 1L, 1L);
+        getServer().getScheduler().runTaskTimer(this, shopManager::sweepStock, STOCK_SWEEP_TICKS, STOCK_SWEEP_TICKS);
         registerCommands();
+        getServer().getPluginManager().registerEvents(new ShopListener(shopManager), this);
+        getServer().getPluginManager().registerEvents(events, this);
+        getServer().getServicesManager().register(ShopEventStream.class, events, this, ServicePriority.Normal);
         getLogger().info("IVillager enabled.");
     }
 
     @Override
     public void onDisable() {
+        // Stats are not persisted otherwise; keep what was traded since the last periodic snapshot.
+        if (snapshotTask != null) new StatsSnapshot(this, analytics, shopManager).runNow();
+        if (sync != null) sync.stop();
+        if (events != null) events.shutdown();
         getLogger().info("IVillager disabled.");
     }
 
-    private void loadShops() {
+    /**
+     * @return the published generation, or null if config.yml could not be read (the current one stays active)
+     */
+    private ShopRegistry loadShops() {
+        if (sync != null) sync.flushWrites();
         ConfigLoader.ConfigResult result = configLoader.load();
-        shopManager.load(result.getShops(), result.getDefaultShop());
+        if (result.isFailed()) {
+            getLogger().warning("[IVillager] config.yml could not be loaded; keeping shop generation "
+                    + shopManager.getRegistry().getGeneration() + ".");
+            return null;
+        }
+        ConfigPhaseEvent publish = new ConfigPhaseEvent();
+        publish.begin();
+        ShopRegistry before = shopManager.getRegistry();
+        ShopRegistry registry = shopManager.load(result.getShops(), result.getDefaultShop(), result.getSummary());
+        settings = result.getSettings();
+        scheduleStatsSnapshot();
+        admission.configure(settings.getMsptThreshold(), settings.getTickBudgetMs(), settings.getMaxQueue());
+        if (publish.shouldCommit()) {
+            publish.phase = ConfigPhaseEvent.PUBLISH;
+            publish.shopCount = result.getShops().size();
+            publish.commit();
+        }
+        if (sync != null) sync.publishLocal(before, registry);
+        rolledBack = false;
+        return registry;
+    }
+
+    /**
+     * Start catalog replication if enabled. Settings are read once; changing them needs a restart.
+     */
+    private void startSync(SyncSettings syncSettings) {
+        if (!syncSettings.isEnabled()) return;
+        SyncTransport transport = syncSettings.getTransport() == SyncSettings.Transport.DIRECTORY
+                ? new DirectoryTransport(this, Path.of(syncSettings.getDirectory()))
+                : new PluginMessageTransport(this);
+        sync = new CatalogSync(this, configLoader, shopManager, transport, syncSettings.getNodeId(), syncSettings.getSecret());
+        sync.start();
+    }
+
+    private void scheduleStatsSnapshot() {
+        int minutes = settings.getStatsSnapshotMinutes();
+        if (snapshotTask != null && minutes == snapshotMinutes) return;
+        if (snapshotTask != null) snapshotTask.cancel();
+        snapshotTask = null;
+        snapshotMinutes = minutes;
+        if (minutes > 0) {
+            long ticks = minutes * 60L * 20L;
+            snapshotTask = new StatsSnapshot(this, analytics, shopManager).runTaskTimer(this, ticks, ticks);
+        }
     }
 
     private void registerCommands() {
         getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event -> {
             IVillagerCommand cmd = new IVillagerCommand(this, shopManager);
-            event.registrar().register("ivillager", "Open IVillager shop or run admin subcommands", java.util.List.of("ivl"), cmd);
+            event.registrar().register(cmd.build(), "Open IVillager shop or run admin subcommands", java.util.List.of("ivl"));
         });
     }
 
     /**
      * Reload config.yml and shop definitions. Call from main thread.
+     *
+     * @return the new shop generation, or null if config.yml could not be loaded
      */
-    public void reloadConfigAndShops() {
-        reloadConfig();
-        loadShops();
-        getLogger().info("Config reloaded, " + shopManager.getShopNames().size() + " shops loaded.");
+    public ShopRegistry reloadConfigAndShops() {
+        // ConfigLoader reads config.yml itself; JavaPlugin#reloadConfig would parse the whole file a second time.
+        ShopRegistry registry = loadShops();
+        if (registry != null) {
+            getLogger().info("Config reloaded as generation " + registry.getGeneration() + ": " + registry.getSummary() + ".");
+        }
+        return registry;
     }
 
     /**
-     * Create a new shop in config with one example trade and reload. Call from main thread.
+     * Switch back to the previous shop generation kept in memory. config.yml is not touched.
+     * Call from main thread.
+     *
+     * @return the generation now active, or null if there is none to roll back to
      */
-    public boolean createShop(String shopName) {
-        if (configLoader.createShop(shopName)) {
-            loadShops();
-            return true;
+    public ShopRegistry rollbackShops() {
+        ShopRegistry registry = shopManager.rollback();
+        if (registry != null) {
+            rolledBack = true;
+            getLogger().info("Rolled back to shop generation " + registry.getGeneration() + ": " + registry.getSummary() + ".");
         }
-        return false;
+        return registry;
+    }
+
+    /**
+     * Whether the active shops were restored by {@link #rollbackShops()} and differ from config.yml
+     * until the next reload. A create or delete reloads config.yml and so ends the rollback.
+     */
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    /**
+     * Create a new shop in config with one example trade and reload. Call from main thread.
+     */
+    public ShopEdit createShop(String shopName) {
+        if (sync != null) sync.flushWrites();
+        if (!configLoader.createShop(shopName)) return ShopEdit.NOT_SAVED;
+        return loadShops() != null ? ShopEdit.APPLIED : ShopEdit.NOT_LOADED;
     }
 
     /**
      * Delete a shop from config and reload. Call from main thread.
      */
-    public boolean deleteShop(String shopName) {
-        if (configLoader.deleteShop(shopName)) {
-            loadShops();
-            return true;
-        }
-        return false;
+    public ShopEdit deleteShop(String shopName) {
+        if (sync != null) sync.flushWrites();
+        if (!configLoader.deleteShop(shopName)) return ShopEdit.NOT_SAVED;
+        return loadShops() != null ? ShopEdit.APPLIED : ShopEdit.NOT_LOADED;
+    }
+
+    /**
+     * Open a shop for many players (e.g. an arena selector), spreading menu opens over ticks
+     * according to bulk_open_per_tick. Call from main thread.
+     *
+     * @param onComplete receives the final counts once every deferred menu was opened or skipped; may be null
+     * @return opened/deferred/skipped counts, or null if the shop does not exist
+     */
+    public BulkOpen.Result openShopForAll(String shopName, Collection<? extends Entity> targets,
+                                          Consumer<BulkOpen.Result> onComplete) {
+        if (!shopManager.hasShop(shopName)) return null;
+        return BulkOpen.start(this, shopManager, admission, shopName, targets, settings.getBulkOpenPerTick(), onComplete);
+    }
+
+    /**
+     * Event API: Bukkit events plus async subscribers.
+     */
+    public EventDispatcher getEvents() {
+        return events;
+    }
+
+    /**
+     * Catalog replication, or null if sync is disabled.
+     */
+    public CatalogSync getSync() {
+        return sync;
+    }
+
+    /**
+     * Queues shop opens and reloads while the server is over its tick budget.
+     */
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    public ShopAnalytics getAnalytics() {
+        return analytics;
     }
 
     public Collection<String> getShopNames() {
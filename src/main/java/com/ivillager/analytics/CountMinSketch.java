@@ -0,0 +1,62 @@
+package com.ivillager.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch over long keys: {@code depth} rows of {@code width} counters.
+ * Estimates never undercount; overcount is bounded by about e/width of the total with
+ * probability 1 - e^-depth. Updates are O(depth) and allocation-free; same-shape sketches merge by addition.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[] counts;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) throw new IllegalArgumentException("depth and width must be positive");
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth * width];
+    }
+
+    /**
+     * Add {@code count} to a key.
+     *
+     * @return the key's new estimate
+     */
+    public long add(long key, long count) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + bucket(key, row);
+            counts[cell] += count;
+            if (counts[cell] < min) min = counts[cell];
+        }
+        return min;
+    }
+
+    public long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long c = counts[row * width + bucket(key, row)];
+            if (c < min) min = c;
+        }
+        return min;
+    }
+
+    /**
+     * Add another sketch of the same shape into this one.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) throw new IllegalArgumentException("shape mismatch");
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0L);
+    }
+
+    private int bucket(long key, int row) {
+        return (int) Long.remainderUnsigned(Hashing.mix(key + (row + 1) * 0x9E3779B97F4A7C15L), width);
+    }
+}
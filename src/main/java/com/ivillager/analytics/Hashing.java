@@ -0,0 +1,27 @@
+package com.ivillager.analytics;
+
+import java.util.UUID;
+
+/**
+ * 64-bit hash mixing for sketch inputs.
+ */
+public final class Hashing {
+
+    private Hashing() {}
+
+    /**
+     * MurmurHash3 fmix64 finalizer: spreads every input bit over the whole output.
+     */
+    public static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    public static long hash(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ivillager.analytics;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog cardinality sketch with 2^precision one-byte registers.
+ * {@link #add} is O(1) and allocation-free; two sketches of the same precision merge by register max.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision 4..16; standard error is about 1.04 / sqrt(2^precision)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) throw new IllegalArgumentException("precision must be 4..16");
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add an element given its 64-bit hash (see {@link Hashing#mix}).
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Sentinel bit bounds the rank to 64 - precision + 1.
+        long w = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    /**
+     * Estimated number of distinct elements added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double e = alpha * m * (double) m / sum;
+        if (e <= 2.5 * m && zeros > 0) {
+            e = m * Math.log((double) m / zeros);
+        }
+        return Math.round(e);
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) throw new IllegalArgumentException("precision mismatch");
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ivillager.analytics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-shop trade analytics in fixed memory: unique buyers (HyperLogLog) and most traded
+ * trades (Count-Min sketch + top-K) for the current window and for all windows since start.
+ * {@link #record} runs on the main thread for every completed trade and is O(1) and
+ * allocation-free once the shop has stats. Not persisted across restarts.
+ */
+public final class ShopAnalytics {
+
+    private final Map<String, ShopStats> current = new ConcurrentHashMap<>();
+    private final Map<String, ShopStats> total = new ConcurrentHashMap<>();
+    private volatile long windowStart = System.currentTimeMillis();
+
+    /**
+     * Record a completed trade.
+     */
+    public void record(String shop, UUID buyer, int tradeIndex) {
+        ShopStats stats = current.get(shop);
+        if (stats == null) {
+            stats = new ShopStats();
+            current.put(shop, stats);
+        }
+        stats.record(Hashing.hash(buyer), tradeIndex);
+    }
+
+    /**
+     * Close the current window: merge it into the all-time stats and start a new one.
+     */
+    public void rollWindow() {
+        for (Map.Entry<String, ShopStats> e : current.entrySet()) {
+            total.computeIfAbsent(e.getKey(), k -> new ShopStats()).merge(e.getValue());
+            e.getValue().clear();
+        }
+        windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Drop stats of a shop that no longer exists.
+     */
+    public void forget(String shop) {
+        current.remove(shop);
+        total.remove(shop);
+    }
+
+    /** Stats since the last {@link #rollWindow}, or null if the shop had no trades. */
+    public ShopStats getCurrent(String shop) {
+        return current.get(shop);
+    }
+
+    /**
+     * All-time stats including the current window (a merged copy), or null if the shop had no trades.
+     */
+    public ShopStats getAllTime(String shop) {
+        ShopStats cur = current.get(shop);
+        ShopStats past = total.get(shop);
+        if (cur == null && past == null) return null;
+        ShopStats merged = new ShopStats();
+        if (past != null) merged.merge(past);
+        if (cur != null) merged.merge(cur);
+        return merged;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    /** Shops with any recorded trade. */
+    public Set<String> getShops() {
+        Set<String> out = new java.util.TreeSet<>(total.keySet());
+        out.addAll(current.keySet());
+        return Collections.unmodifiableSet(out);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ivillager.analytics;
+
+/**
+ * Fixed-size trade statistics for one shop over one time window: a HyperLogLog of buyers
+ * and a Count-Min sketch of trade indices with a top-K of the most traded ones.
+ * Recording is O(1) and allocation-free; windows merge into longer ones with {@link #merge}.
+ */
+public final class ShopStats {
+
+    static final int HLL_PRECISION = 11;
+    static final int CMS_DEPTH = 4;
+    static final int CMS_WIDTH = 256;
+    static final int TOP_K = 10;
+
+    private final HyperLogLog buyers = new HyperLogLog(HLL_PRECISION);
+    private final CountMinSketch trades = new CountMinSketch(CMS_DEPTH, CMS_WIDTH);
+    private final TopK top = new TopK(TOP_K);
+    private long total;
+
+    void record(long buyerHash, int tradeIndex) {
+        buyers.add(buyerHash);
+        top.offer(tradeIndex, trades.add(tradeIndex, 1));
+        total++;
+    }
+
+    /**
+     * Fold another window into this one. Top entries of both are re-estimated on the merged sketch.
+     */
+    void merge(ShopStats other) {
+        buyers.merge(other.buyers);
+        trades.merge(other.trades);
+        long[] candidates = new long[top.size() + other.top.size()];
+        int n = 0;
+        for (int i = 0; i < top.size(); i++) candidates[n++] = top.keyAt(i);
+        for (int i = 0; i < other.top.size(); i++) candidates[n++] = other.top.keyAt(i);
+        for (long key : candidates) {
+            top.offer(key, trades.estimate(key));
+        }
+        total += other.total;
+    }
+
+    void clear() {
+        buyers.clear();
+        trades.clear();
+        top.clear();
+        total = 0;
+    }
+
+    public long getUniqueBuyers() {
+        return buyers.estimate();
+    }
+
+    public long getTotalTrades() {
+        return total;
+    }
+
+    /**
+     * Most traded trade indices with estimated counts, highest first.
+     */
+    public long[][] getTopTrades() {
+        int[] slots = top.sortedSlots();
+        long[][] out = new long[slots.length][];
+        for (int i = 0; i < slots.length; i++) {
+            out[i] = new long[] {top.keyAt(slots[i]), top.countAt(slots[i])};
+        }
+        return out;
+    }
+}
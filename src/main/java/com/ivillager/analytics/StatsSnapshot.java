@@ -0,0 +1,92 @@
+package com.ivillager.analytics;
+
+import com.ivillager.shop.ShopManager;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodic task: writes the current window and all-time stats of every shop to
+ * stats/snapshot.yml, then starts a new window. The YAML is built on the main thread
+ * and written asynchronously (temp file + move, so readers never see a partial file).
+ * {@link #runNow()} takes a last snapshot on shutdown, when no tasks can be scheduled.
+ */
+public final class StatsSnapshot extends BukkitRunnable {
+
+    private final Plugin plugin;
+    private final ShopAnalytics analytics;
+    private final ShopManager shopManager;
+
+    public StatsSnapshot(Plugin plugin, ShopAnalytics analytics, ShopManager shopManager) {
+        this.plugin = plugin;
+        this.analytics = analytics;
+        this.shopManager = shopManager;
+    }
+
+    @Override
+    public void run() {
+        String text = snapshot();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> save(text));
+    }
+
+    /**
+     * Take a snapshot and write it on the calling thread. For onDisable, where the plugin
+     * can no longer schedule the asynchronous write.
+     */
+    public void runNow() {
+        save(snapshot());
+    }
+
+    /**
+     * Build the snapshot YAML and start a new window. Main thread only.
+     */
+    private String snapshot() {
+        YamlConfiguration yml = new YamlConfiguration();
+        yml.set("window_start", analytics.getWindowStart());
+        yml.set("window_end", System.currentTimeMillis());
+        for (String shop : analytics.getShops()) {
+            ConfigurationSection sec = yml.createSection("shops." + shop);
+            write(sec.createSection("window"), shop, analytics.getCurrent(shop));
+            write(sec.createSection("all_time"), shop, analytics.getAllTime(shop));
+        }
+        analytics.rollWindow();
+        return yml.saveToString();
+    }
+
+    private void save(String text) {
+        File dir = new File(plugin.getDataFolder(), "stats");
+        try {
+            Files.createDirectories(dir.toPath());
+            File tmp = new File(dir, "snapshot.yml.tmp");
+            Files.writeString(tmp.toPath(), text, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), new File(dir, "snapshot.yml").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Failed to write stats snapshot: " + e.getMessage());
+        }
+    }
+
+    private void write(ConfigurationSection sec, String shop, ShopStats stats) {
+        if (stats == null) {
+            sec.set("trades", 0);
+            sec.set("unique_buyers", 0);
+            return;
+        }
+        sec.set("trades", stats.getTotalTrades());
+        sec.set("unique_buyers", stats.getUniqueBuyers());
+        List<String> top = new ArrayList<>();
+        for (long[] entry : stats.getTopTrades()) {
+            top.add(shopManager.describeTrade(shop, (int) entry[0]) + ": " + entry[1]);
+        }
+        sec.set("top_trades", top);
+    }
+}
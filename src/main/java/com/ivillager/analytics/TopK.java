@@ -0,0 +1,103 @@
+package com.ivillager.analytics;
+
+import java.util.Arrays;
+
+/**
+ * The {@code capacity} keys with the highest counts seen so far, kept in a fixed-size
+ * min-heap. Counts come from a {@link CountMinSketch}, so a key that enters late carries
+ * its full estimated history. {@link #offer} is O(capacity) worst case and allocation-free.
+ */
+public final class TopK {
+
+    private final long[] keys;
+    private final long[] counts;
+    private int size;
+
+    public TopK(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    /**
+     * Record that {@code key} now has estimated count {@code count}.
+     */
+    public void offer(long key, long count) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                counts[i] = count;
+                siftUp(i);
+                siftDown(i);
+                return;
+            }
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            siftUp(size++);
+        } else if (count > counts[0]) {
+            keys[0] = key;
+            counts[0] = count;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Key at heap slot {@code i} (unordered; see {@link #sortedSlots}). */
+    public long keyAt(int i) {
+        return keys[i];
+    }
+
+    public long countAt(int i) {
+        return counts[i];
+    }
+
+    /**
+     * Heap slots ordered by count, highest first. Allocates; for reporting only.
+     */
+    public int[] sortedSlots() {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) slots[i] = i;
+        Arrays.sort(slots, (a, b) -> Long.compare(counts[b], counts[a]));
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) out[i] = slots[i];
+        return out;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int l = 2 * i + 1;
+            int smallest = i;
+            if (l < size && counts[l] < counts[smallest]) smallest = l;
+            if (l + 1 < size && counts[l + 1] < counts[smallest]) smallest = l + 1;
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        long c = counts[a];
+        counts[a] = counts[b];
+        counts[b] = c;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ivillager.api;
+
+import java.util.UUID;
+
+/**
+ * Immutable copy of an IVillager event, delivered to async subscribers of {@link ShopEventStream}.
+ * Holds no Bukkit objects, so it is safe to use off the main thread.
+ *
+ * @param type       what happened
+ * @param shop       lower-case shop key
+ * @param playerId   player's UUID
+ * @param playerName player's name at the time of the event
+ * @param tradeIndex trade index in the shop's "trades" list, or -1 for {@link Type#SHOP_OPENED}
+ * @param timeMillis wall-clock time of the event
+ */
+public record ShopActivity(Type type, String shop, UUID playerId, String playerName, int tradeIndex, long timeMillis) {
+
+    public enum Type { SHOP_OPENED, TRADE_COMPLETED, STOCK_DEPLETED }
+}
@@ -0,0 +1,86 @@
+package com.ivillager.api;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous feed of IVillager events for other plugins. Get it from the services manager:
+ * {@code Bukkit.getServicesManager().load(ShopEventStream.class)}.
+ * <p>
+ * Each subscriber has its own bounded queue. The main thread only appends to the queues;
+ * batches are delivered on an async thread, one batch at a time per subscriber. A subscriber
+ * that falls behind never slows the server: once its queue is full, new events are dropped for
+ * it or it is unsubscribed, depending on its {@link Overflow} policy. Subscriptions end
+ * automatically when the owning plugin is disabled.
+ * <p>
+ * For synchronous handling on the main thread, listen to the Bukkit events in
+ * {@code com.ivillager.api.event} instead.
+ */
+public interface ShopEventStream {
+
+    int DEFAULT_QUEUE_CAPACITY = 4096;
+    int DEFAULT_MAX_BATCH = 256;
+
+    /** What happens when a subscriber's queue is full. */
+    enum Overflow {
+        /** Drop new events for this subscriber until it catches up (counted in {@link Subscription#getDropped()}). */
+        DROP_EVENTS,
+        /** Cancel the subscription. */
+        UNSUBSCRIBE
+    }
+
+    /**
+     * Subscribe with {@link #DEFAULT_QUEUE_CAPACITY}, {@link #DEFAULT_MAX_BATCH} and {@link Overflow#DROP_EVENTS}.
+     */
+    default Subscription subscribe(Plugin owner, String name, Consumer<List<ShopActivity>> consumer) {
+        return subscribe(owner, name, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH, Overflow.DROP_EVENTS, consumer);
+    }
+
+    /**
+     * @param owner         plugin that owns the subscription; it is cancelled when the plugin is disabled
+     * @param name          label for admin output
+     * @param queueCapacity events buffered for this subscriber
+     * @param maxBatch      most events passed to one {@code consumer} call
+     * @param consumer      called on an async thread with events in order; never concurrently with itself
+     */
+    Subscription subscribe(Plugin owner, String name, int queueCapacity, int maxBatch, Overflow overflow,
+                           Consumer<List<ShopActivity>> consumer);
+
+    /** Active subscriptions. */
+    List<Subscription> getSubscriptions();
+
+    /**
+     * A subscriber's handle and its delivery metrics.
+     */
+    interface Subscription {
+
+        Plugin getOwner();
+
+        String getName();
+
+        boolean isActive();
+
+        /** Stop delivery; queued events are discarded. */
+        void cancel();
+
+        /** Events waiting in the queue. */
+        int getQueued();
+
+        long getDelivered();
+
+        long getDropped();
+
+        long getBatches();
+
+        /** Consumer calls that threw. */
+        long getErrors();
+
+        /** Age of the oldest event in the most recent batch when it was delivered, in milliseconds. */
+        long getLastLagMillis();
+
+        /** Highest {@link #getLastLagMillis()} seen. */
+        long getMaxLagMillis();
+    }
+}
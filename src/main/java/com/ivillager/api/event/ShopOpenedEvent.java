@@ -0,0 +1,41 @@
+package com.ivillager.api.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * Called on the main thread after an IVillager shop menu was opened for a player.
+ */
+public final class ShopOpenedEvent extends PlayerEvent {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final String shop;
+    private final int recipeCount;
+
+    public ShopOpenedEvent(Player player, String shop, int recipeCount) {
+        super(player);
+        this.shop = shop;
+        this.recipeCount = recipeCount;
+    }
+
+    /** Lower-case shop key. */
+    public String getShop() {
+        return shop;
+    }
+
+    /** Trades shown in the menu (fewer than the shop has when it uses a rotation). */
+    public int getRecipeCount() {
+        return recipeCount;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
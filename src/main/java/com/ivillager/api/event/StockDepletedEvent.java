@@ -0,0 +1,42 @@
+package com.ivillager.api.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * Called on the main thread when a trade reaches max_uses for a player in a shop with a
+ * restock policy. The trade stays locked for that player until it restocks.
+ */
+public final class StockDepletedEvent extends PlayerEvent {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final String shop;
+    private final int tradeIndex;
+
+    public StockDepletedEvent(Player player, String shop, int tradeIndex) {
+        super(player);
+        this.shop = shop;
+        this.tradeIndex = tradeIndex;
+    }
+
+    /** Lower-case shop key. */
+    public String getShop() {
+        return shop;
+    }
+
+    /** Index of the trade in the shop's "trades" list (0-based). */
+    public int getTradeIndex() {
+        return tradeIndex;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
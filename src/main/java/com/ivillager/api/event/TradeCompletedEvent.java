@@ -0,0 +1,53 @@
+package com.ivillager.api.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Called on the main thread after a player completed a trade in an IVillager shop.
+ * Listeners run inside the trade; for slow work use {@link com.ivillager.api.ShopEventStream}.
+ */
+public final class TradeCompletedEvent extends PlayerEvent {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final String shop;
+    private final int tradeIndex;
+    private final ItemStack result;
+
+    public TradeCompletedEvent(Player player, String shop, int tradeIndex, ItemStack result) {
+        super(player);
+        this.shop = shop;
+        this.tradeIndex = tradeIndex;
+        this.result = result;
+    }
+
+    /** Lower-case shop key. */
+    public String getShop() {
+        return shop;
+    }
+
+    /** Index of the trade in the shop's "trades" list (0-based). */
+    public int getTradeIndex() {
+        return tradeIndex;
+    }
+
+    /**
+     * Copy of the item the player received, never null. It comes from the shop definition the menu
+     * was built from, even if a reload changed the shop while the menu was open.
+     */
+    public ItemStack getResult() {
+        return result.clone();
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -1,25 +1,48 @@
 package com.ivillager.command;
 
 import com.ivillager.IVillagerPlugin;
+import com.ivillager.analytics.ShopStats;
+import com.ivillager.api.ShopEventStream;
+import com.ivillager.shop.AdmissionController;
+import com.ivillager.shop.BulkOpen;
 import com.ivillager.shop.ShopManager;
-import io.papermc.paper.command.brigadier.BasicCommand;
+import com.ivillager.shop.ShopRegistry;
+import com.ivillager.shop.ShopSearchIndex;
+import com.ivillager.sync.CatalogSync;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
+import io.papermc.paper.command.brigadier.argument.resolvers.selector.PlayerSelectorArgumentResolver;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
- * Handles /ivillager and /ivl: open shop, reload, create, delete.
+ * Brigadier tree for /ivillager and /ivl: open shop, list, search, bulk open, stats, queue, events, sync, reload, rollback, create, delete.
+ * Arguments are parsed once by the dispatcher; shop names and search terms are suggested from
+ * lists precomputed on load. Permission requirements on nodes keep unauthorized branches out
+ * of each client's command tree.
  * Feedback is minimal and only to the command sender (admin-only for errors/confirmations).
  */
-public final class IVillagerCommand implements BasicCommand {
+public final class IVillagerCommand {
 
     private final IVillagerPlugin plugin;
     private final ShopManager shopManager;
@@ -29,38 +52,75 @@ public final class IVillagerCommand implements BasicCommand {
         this.shopManager = shopManager;
     }
 
-    @Override
-    public void execute(CommandSourceStack source, String[] args) {
-        if (args.length == 0) {
-            openDefaultOrMessage(source);
-            return;
-        }
-        String first = args[0].trim().toLowerCase(Locale.ROOT);
-        if ("reload".equals(first)) {
-            doReload(source);
-            return;
-        }
-        if ("delete".equals(first)) {
-            if (args.length < 2) {
-                send(source, Component.text("Usage: /ivillager delete <shop name>", NamedTextColor.RED));
-                return;
-            }
-            doDelete(source, args[1].trim());
-            return;
-        }
-        if ("create".equals(first)) {
-            if (args.length < 2) {
-                send(source, Component.text("Usage: /ivillager create <shop name>", NamedTextColor.RED));
-                return;
-            }
-            doCreate(source, args[1].trim());
-            return;
-        }
-        if ("list".equals(first)) {
-            doList(source);
-            return;
-        }
-        openShop(source, first);
+    /**
+     * Build the command tree rooted at "ivillager" (the alias is added at registration).
+     */
+    public LiteralCommandNode<CommandSourceStack> build() {
+        ShopNameArgument shop = new ShopNameArgument(shopManager);
+        LiteralArgumentBuilder<CommandSourceStack> root = Commands.literal("ivillager")
+                .executes(ctx -> run(() -> openDefaultOrMessage(ctx.getSource())))
+                .then(Commands.literal("list")
+                        .executes(ctx -> run(() -> doList(ctx.getSource()))))
+                .then(Commands.literal("search")
+                        .then(Commands.argument("material", StringArgumentType.word())
+                                .suggests((ctx, builder) -> ShopNameArgument.suggestSorted(
+                                        shopManager.getSearchIndex().getTerms(), builder))
+                                .executes(ctx -> run(() -> doSearch(ctx.getSource(),
+                                        StringArgumentType.getString(ctx, "material"))))))
+                .then(Commands.literal("open")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .then(Commands.argument("shop", shop)
+                                .then(Commands.argument("players", ArgumentTypes.players())
+                                        .executes(ctx -> {
+                                            List<Player> targets = ctx.getArgument("players", PlayerSelectorArgumentResolver.class)
+                                                    .resolve(ctx.getSource());
+                                            doBulkOpen(ctx.getSource(), shopArg(ctx), targets);
+                                            return Command.SINGLE_SUCCESS;
+                                        }))))
+                .then(Commands.literal("stats")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .then(Commands.argument("shop", shop)
+                                .executes(ctx -> run(() -> doStats(ctx.getSource(), shopArg(ctx))))))
+                .then(Commands.literal("queue")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .executes(ctx -> run(() -> doQueue(ctx.getSource()))))
+                .then(Commands.literal("reload")
+                        .requires(src -> hasAny(src.getSender(), "ivillager.reload", "ivillager.admin"))
+                        .executes(ctx -> run(() -> doReload(ctx.getSource()))))
+                .then(Commands.literal("events")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .executes(ctx -> run(() -> doEvents(ctx.getSource()))))
+                .then(Commands.literal("sync")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .executes(ctx -> run(() -> doSync(ctx.getSource()))))
+                .then(Commands.literal("rollback")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .executes(ctx -> run(() -> doRollback(ctx.getSource()))))
+                .then(Commands.literal("create")
+                        .requires(src -> src.getSender().hasPermission("ivillager.admin"))
+                        .then(Commands.argument("name", StringArgumentType.word())
+                                .executes(ctx -> run(() -> doCreate(ctx.getSource(),
+                                        StringArgumentType.getString(ctx, "name"))))))
+                .then(Commands.literal("delete")
+                        .requires(src -> hasAny(src.getSender(), "ivillager.delete", "ivillager.admin"))
+                        .then(Commands.argument("shop", shop)
+                                .executes(ctx -> run(() -> doDelete(ctx.getSource(), shopArg(ctx))))))
+                .then(Commands.argument("shop", shop)
+                        .executes(ctx -> run(() -> openShop(ctx.getSource(), shopArg(ctx)))));
+        return root.build();
+    }
+
+    private static int run(Runnable action) {
+        action.run();
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static String shopArg(CommandContext<CommandSourceStack> ctx) {
+        return ctx.getArgument("shop", String.class);
+    }
+
+    private static boolean hasAny(CommandSender sender, String first, String second) {
+        return sender.hasPermission(first) || sender.hasPermission(second);
     }
 
     private void openDefaultOrMessage(CommandSourceStack source) {
@@ -74,7 +134,7 @@ public final class IVillagerCommand implements BasicCommand {
                 send(source, Component.text("You do not have permission to open this shop.", NamedTextColor.RED));
                 return;
             }
-            shopManager.openShop(player, defaultShop);
+            admitOpen(source, player, defaultShop);
             return;
         }
         send(source, Component.text("No default shop set. Use /ivillager <shop> or set default_shop in config.", NamedTextColor.GRAY));
@@ -93,7 +153,26 @@ public final class IVillagerCommand implements BasicCommand {
             send(source, Component.text("You do not have permission to open this shop.", NamedTextColor.RED));
             return;
         }
-        shopManager.openShop(player, shopName);
+        admitOpen(source, player, shopName);
+    }
+
+    /**
+     * Open now, or queue the open while the server is lagging. A queued open is dropped if the player
+     * left or opened another inventory in the meantime, and replaced if they ask for another shop.
+     * The shop may be deleted while the open waits, so the result is checked when it runs.
+     */
+    private void admitOpen(CommandSourceStack source, Player player, String shopName) {
+        AdmissionController.Admission admission = plugin.getAdmission().submitOpen(player.getUniqueId(),
+                () -> {
+                    if (!shopManager.openShop(player, shopName)) {
+                        send(source, Component.text("Shop '" + shopName + "' no longer exists.", NamedTextColor.RED));
+                    }
+                },
+                () -> player.isOnline() && player.getOpenInventory().getType() == InventoryType.CRAFTING,
+                () -> send(source, Component.text("The shop is busy right now, please try again in a moment.", NamedTextColor.GRAY)));
+        if (admission == AdmissionController.Admission.QUEUED) {
+            send(source, Component.text("Server is over its tick budget; the shop will open shortly.", NamedTextColor.GRAY));
+        }
     }
 
     /**
@@ -108,32 +187,101 @@ public final class IVillagerCommand implements BasicCommand {
     }
 
     private void doReload(CommandSourceStack source) {
-        if (!source.getSender().hasPermission("ivillager.reload") && !source.getSender().hasPermission("ivillager.admin")) {
-            send(source, Component.text("You do not have permission to reload.", NamedTextColor.RED));
+        AdmissionController.Admission admission = plugin.getAdmission().submit(
+                () -> {
+                    ShopRegistry registry = plugin.reloadConfigAndShops();
+                    if (registry == null) {
+                        send(source, Component.text("config.yml could not be loaded; shops unchanged. See console.", NamedTextColor.RED));
+                    } else {
+                        send(source, Component.text("Config reloaded as generation " + registry.getGeneration()
+                                + " (" + registry.getSummary() + ").", NamedTextColor.GREEN));
+                    }
+                },
+                () -> send(source, Component.text("Server is busy; reload not queued. Try again shortly.", NamedTextColor.RED)));
+        if (admission == AdmissionController.Admission.QUEUED) {
+            send(source, Component.text("Server is over its tick budget; reload queued.", NamedTextColor.GRAY));
+        }
+    }
+
+    private void doRollback(CommandSourceStack source) {
+        ShopRegistry registry = plugin.rollbackShops();
+        if (registry == null) {
+            send(source, Component.text("No previous shop generation to roll back to.", NamedTextColor.RED));
             return;
         }
-        plugin.reloadConfigAndShops();
-        send(source, Component.text("Config reloaded.", NamedTextColor.GREEN));
+        String loadedAt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT)
+                .withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(registry.getLoadedAt()));
+        send(source, Component.text("Rolled back to generation " + registry.getGeneration() + " loaded " + loadedAt
+                + " (" + registry.getSummary() + ").", NamedTextColor.GREEN));
+        send(source, Component.text("config.yml is unchanged; the next reload, create or delete reads it again.", NamedTextColor.GRAY));
     }
 
-    private void doDelete(CommandSourceStack source, String shopName) {
-        if (!source.getSender().hasPermission("ivillager.delete") && !source.getSender().hasPermission("ivillager.admin")) {
-            send(source, Component.text("You do not have permission to delete shops.", NamedTextColor.RED));
+    private void doQueue(CommandSourceStack source) {
+        AdmissionController admission = plugin.getAdmission();
+        send(source, Component.text(String.format(Locale.ROOT,
+                "MSPT %.1f%s, queued %d, deferred %d, rejected %d, replaced %d, skipped %d",
+                admission.getMspt(), admission.isOverloaded() ? " (over threshold)" : "",
+                admission.getQueueDepth(), admission.getDeferredCount(), admission.getRejectedCount(),
+                admission.getReplacedCount(), admission.getSkippedCount()), NamedTextColor.GRAY));
+    }
+
+    private void doEvents(CommandSourceStack source) {
+        List<ShopEventStream.Subscription> subs = plugin.getEvents().getSubscriptions();
+        if (subs.isEmpty()) {
+            send(source, Component.text("No async event subscribers.", NamedTextColor.GRAY));
+            return;
+        }
+        send(source, Component.text("Async event subscribers (" + subs.size() + "):", NamedTextColor.GOLD));
+        for (ShopEventStream.Subscription s : subs) {
+            send(source, Component.text(String.format(Locale.ROOT,
+                    "%s/%s: queued %d, delivered %d in %d batches, dropped %d, errors %d, lag %d ms (max %d)",
+                    s.getOwner().getName(), s.getName(), s.getQueued(), s.getDelivered(), s.getBatches(),
+                    s.getDropped(), s.getErrors(), s.getLastLagMillis(), s.getMaxLagMillis()),
+                    s.getDropped() > 0 ? NamedTextColor.YELLOW : NamedTextColor.GRAY));
+        }
+    }
+
+    private void doSync(CommandSourceStack source) {
+        CatalogSync sync = plugin.getSync();
+        if (sync == null) {
+            send(source, Component.text("Catalog sync is disabled (sync.enabled in config.yml).", NamedTextColor.GRAY));
             return;
         }
+        send(source, Component.text("Node '" + sync.getNodeId() + "' over " + sync.getTransportName()
+                + ", applied " + sync.getAppliedCount() + " remote changes, " + sync.getPendingCount() + " waiting, "
+                + sync.getRejectedCount() + " rejected", sync.getRejectedCount() > 0 ? NamedTextColor.YELLOW : NamedTextColor.GRAY));
+        StringBuilder vv = new StringBuilder("Version vector:");
+        for (Map.Entry<String, Long> e : new TreeMap<>(sync.getVector().asMap()).entrySet()) {
+            vv.append(' ').append(e.getKey()).append('=').append(e.getValue());
+        }
+        send(source, Component.text(vv.toString(), NamedTextColor.GRAY));
+    }
+
+    private void doDelete(CommandSourceStack source, String shopName) {
         if (!shopManager.hasShop(shopName)) {
             send(source, Component.text("Unknown shop: " + shopName, NamedTextColor.RED));
             return;
         }
-        if (plugin.deleteShop(shopName)) {
-            send(source, Component.text("Shop '" + shopName + "' deleted.", NamedTextColor.GREEN));
-        } else {
-            send(source, Component.text("Failed to delete shop.", NamedTextColor.RED));
+        // Rewrites config.yml and republishes the shops, like a reload.
+        AdmissionController.Admission admission = plugin.getAdmission().submit(
+                () -> {
+                    boolean rolledBack = plugin.isRolledBack();
+                    switch (plugin.deleteShop(shopName)) {
+                        case APPLIED -> send(source, Component.text("Shop '" + shopName + "' deleted.", NamedTextColor.GREEN));
+                        case NOT_SAVED -> send(source, Component.text("Failed to delete shop.", NamedTextColor.RED));
+                        case NOT_LOADED -> send(source, Component.text("Shop removed from config.yml, but the file could not be"
+                                + " loaded again; shops unchanged. See console.", NamedTextColor.RED));
+                    }
+                    warnRollbackEnded(source, rolledBack);
+                },
+                () -> send(source, Component.text("Server is busy; delete not queued. Try again shortly.", NamedTextColor.RED)));
+        if (admission == AdmissionController.Admission.QUEUED) {
+            send(source, Component.text("Server is over its tick budget; delete queued.", NamedTextColor.GRAY));
         }
     }
 
     private void doList(CommandSourceStack source) {
-        java.util.Collection<String> names = plugin.getShopNames();
+        List<String> names = shopManager.getSortedShopNames();
         if (names.isEmpty()) {
             send(source, Component.text("No shops defined. Use /ivillager create <name> or edit config.yml.", NamedTextColor.GRAY));
             return;
@@ -142,52 +290,112 @@ public final class IVillagerCommand implements BasicCommand {
         send(source, Component.text("Shops: " + list, NamedTextColor.GRAY));
     }
 
-    private void doCreate(CommandSourceStack source, String shopName) {
-        if (!source.getSender().hasPermission("ivillager.admin")) {
-            send(source, Component.text("You do not have permission to create shops.", NamedTextColor.RED));
+    /**
+     * Open a shop for every player matched by the selector, spread over ticks.
+     */
+    private void doBulkOpen(CommandSourceStack source, String shopName, List<Player> targets) {
+        boolean[] started = new boolean[1];
+        BulkOpen.Result result = plugin.openShopForAll(shopName, targets, done -> {
+            // Only report again if some menus were deferred; otherwise the first message is final.
+            if (started[0]) {
+                send(source, Component.text("Shop '" + shopName + "' finished: opened " + done.getOpened()
+                        + ", skipped " + done.getSkipped() + ".", NamedTextColor.GREEN));
+            }
+        });
+        if (result == null) {
+            send(source, Component.text("Unknown shop: " + shopName, NamedTextColor.RED));
             return;
         }
-        if (shopManager.hasShop(shopName)) {
-            send(source, Component.text("Shop already exists: " + shopName, NamedTextColor.RED));
+        started[0] = true;
+        send(source, Component.text("Shop '" + shopName + "': opened " + result.getOpened()
+                + ", deferred " + result.getDeferred() + ", skipped " + result.getSkipped() + ".", NamedTextColor.GREEN));
+    }
+
+    /**
+     * Show estimated unique buyers and top trades of a shop for the current window and all time.
+     */
+    private void doStats(CommandSourceStack source, String shopName) {
+        if (!shopManager.hasShop(shopName)) {
+            send(source, Component.text("Unknown shop: " + shopName, NamedTextColor.RED));
+            return;
+        }
+        String key = shopName.toLowerCase(Locale.ROOT);
+        sendStats(source, "This window", key, plugin.getAnalytics().getCurrent(key));
+        sendStats(source, "All time", key, plugin.getAnalytics().getAllTime(key));
+    }
+
+    private void sendStats(CommandSourceStack source, String label, String shop, ShopStats stats) {
+        if (stats == null || stats.getTotalTrades() == 0) {
+            send(source, Component.text(label + ": no trades.", NamedTextColor.GRAY));
             return;
         }
-        if (plugin.createShop(shopName)) {
-            send(source, Component.text("Shop '" + shopName + "' created. Edit config.yml to add or modify trades.", NamedTextColor.GREEN));
-        } else {
-            send(source, Component.text("Failed to create shop (check logs).", NamedTextColor.RED));
+        send(source, Component.text(label + ": " + stats.getTotalTrades() + " trades, ~"
+                + stats.getUniqueBuyers() + " unique buyers", NamedTextColor.GRAY));
+        long[][] top = stats.getTopTrades();
+        for (int i = 0; i < Math.min(5, top.length); i++) {
+            send(source, Component.text("  " + shopManager.describeTrade(shop, (int) top[i][0]) + ": ~" + top[i][1], NamedTextColor.GRAY));
         }
     }
 
-    private void send(CommandSourceStack source, Component message) {
-        source.getSender().sendMessage(message);
+    /**
+     * List shops that sell or buy the given material, potion type or enchantment.
+     * Players only see shops they are allowed to open.
+     */
+    private void doSearch(CommandSourceStack source, String term) {
+        List<ShopSearchIndex.Hit> hits = shopManager.getSearchIndex().search(term);
+        Player player = source.getSender() instanceof Player p ? p : null;
+        Map<String, Boolean> allowed = new HashMap<>();
+        Set<String> sells = new LinkedHashSet<>();
+        Set<String> buys = new LinkedHashSet<>();
+        for (ShopSearchIndex.Hit hit : hits) {
+            if (player != null && !allowed.computeIfAbsent(hit.getShop(), s -> canOpenShop(player, s))) continue;
+            (hit.isResult() ? sells : buys).add(hit.getShop());
+        }
+        if (sells.isEmpty() && buys.isEmpty()) {
+            send(source, Component.text("No shop trades " + term + ".", NamedTextColor.GRAY));
+            return;
+        }
+        if (!sells.isEmpty()) {
+            send(source, Component.text("Sells " + term + ": " + String.join(", ", sells), NamedTextColor.GRAY));
+        }
+        if (!buys.isEmpty()) {
+            send(source, Component.text("Buys " + term + ": " + String.join(", ", buys), NamedTextColor.GRAY));
+        }
     }
 
-    @Override
-    public Collection<String> suggest(CommandSourceStack source, String[] args) {
-        if (args.length == 0) {
-            List<String> out = new ArrayList<>(List.of("list", "reload", "create", "delete"));
-            out.addAll(plugin.getShopNames());
-            return out;
+    private void doCreate(CommandSourceStack source, String shopName) {
+        if (shopManager.hasShop(shopName)) {
+            send(source, Component.text("Shop already exists: " + shopName, NamedTextColor.RED));
+            return;
         }
-        if (args.length == 1) {
-            String partial = args[0].toLowerCase(Locale.ROOT);
-            List<String> out = new ArrayList<>();
-            for (String s : List.of("list", "reload", "create", "delete")) {
-                if (s.startsWith(partial)) out.add(s);
-            }
-            for (String shopName : plugin.getShopNames()) {
-                if (shopName.toLowerCase(Locale.ROOT).startsWith(partial)) {
-                    out.add(shopName);
-                }
-            }
-            return out;
+        AdmissionController.Admission admission = plugin.getAdmission().submit(
+                () -> {
+                    boolean rolledBack = plugin.isRolledBack();
+                    switch (plugin.createShop(shopName)) {
+                        case APPLIED -> send(source, Component.text("Shop '" + shopName + "' created. Edit config.yml to add or modify trades.", NamedTextColor.GREEN));
+                        case NOT_SAVED -> send(source, Component.text("Failed to create shop (check logs).", NamedTextColor.RED));
+                        case NOT_LOADED -> send(source, Component.text("Shop added to config.yml, but the file could not be"
+                                + " loaded again; shops unchanged. See console.", NamedTextColor.RED));
+                    }
+                    warnRollbackEnded(source, rolledBack);
+                },
+                () -> send(source, Component.text("Server is busy; create not queued. Try again shortly.", NamedTextColor.RED)));
+        if (admission == AdmissionController.Admission.QUEUED) {
+            send(source, Component.text("Server is over its tick budget; create queued.", NamedTextColor.GRAY));
         }
-        if (args.length == 2 && ("create".equals(args[0].toLowerCase(Locale.ROOT)) || "delete".equals(args[0].toLowerCase(Locale.ROOT)))) {
-            String partial = args[1].toLowerCase(Locale.ROOT);
-            return plugin.getShopNames().stream()
-                    .filter(s -> s.toLowerCase(Locale.ROOT).startsWith(partial))
-                    .collect(Collectors.toList());
+    }
+
+    /**
+     * Create and delete reload config.yml; if shops were rolled back, say that the rollback is gone.
+     */
+    private void warnRollbackEnded(CommandSourceStack source, boolean wasRolledBack) {
+        if (wasRolledBack && !plugin.isRolledBack()) {
+            send(source, Component.text("Shops had been rolled back; config.yml was loaded again, so the rolled-back"
+                    + " generation is no longer active.", NamedTextColor.YELLOW));
         }
-        return Collections.emptyList();
+    }
+
+    private void send(CommandSourceStack source, Component message) {
+        source.getSender().sendMessage(message);
     }
 }
@@ -0,0 +1,89 @@
+package com.ivillager.command;
+
+import com.ivillager.shop.ShopManager;
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import io.papermc.paper.command.brigadier.MessageComponentSerializer;
+import io.papermc.paper.command.brigadier.argument.CustomArgumentType;
+import net.kyori.adventure.text.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Brigadier argument for an existing shop name. Sent to clients as a string: plain names are typed
+ * as is, names with spaces or other characters Brigadier does not allow unquoted are typed (and
+ * suggested) in double quotes. Parsing lower-cases and validates the name once in the dispatcher,
+ * and suggestions come from the sorted name list ShopManager precomputes on load (binary search,
+ * then a prefix walk).
+ */
+final class ShopNameArgument implements CustomArgumentType.Converted<String, String> {
+
+    private static final DynamicCommandExceptionType UNKNOWN_SHOP = new DynamicCommandExceptionType(
+            name -> MessageComponentSerializer.message().serialize(Component.text("Unknown shop: " + name)));
+
+    private final ShopManager shopManager;
+
+    ShopNameArgument(ShopManager shopManager) {
+        this.shopManager = shopManager;
+    }
+
+    @Override
+    public String convert(String nativeType) throws CommandSyntaxException {
+        String key = nativeType.toLowerCase(Locale.ROOT);
+        if (!shopManager.hasShop(key)) throw UNKNOWN_SHOP.create(nativeType);
+        return key;
+    }
+
+    @Override
+    public ArgumentType<String> getNativeType() {
+        return StringArgumentType.string();
+    }
+
+    @Override
+    public <S> CompletableFuture<Suggestions> listSuggestions(CommandContext<S> context, SuggestionsBuilder builder) {
+        String prefix = builder.getRemainingLowerCase();
+        if (prefix.startsWith("\"") || prefix.startsWith("'")) prefix = prefix.substring(1);
+        List<String> sorted = shopManager.getSortedShopNames();
+        int i = Collections.binarySearch(sorted, prefix);
+        if (i < 0) i = -i - 1;
+        for (; i < sorted.size() && sorted.get(i).startsWith(prefix); i++) {
+            builder.suggest(quoteIfNeeded(sorted.get(i)));
+        }
+        return builder.buildFuture();
+    }
+
+    /**
+     * The name as it has to be typed: unchanged if Brigadier reads it unquoted, otherwise in double quotes.
+     */
+    static String quoteIfNeeded(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (!StringReader.isAllowedInUnquotedString(name.charAt(i))) {
+                return '"' + name.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+            }
+        }
+        return name.isEmpty() ? "\"\"" : name;
+    }
+
+    /**
+     * Suggest every entry of a sorted, lower-case list that starts with the typed prefix.
+     * O(log n + matches).
+     */
+    static CompletableFuture<Suggestions> suggestSorted(List<String> sorted, SuggestionsBuilder builder) {
+        String prefix = builder.getRemainingLowerCase();
+        int i = Collections.binarySearch(sorted, prefix);
+        if (i < 0) i = -i - 1;
+        for (; i < sorted.size() && sorted.get(i).startsWith(prefix); i++) {
+            builder.suggest(sorted.get(i));
+        }
+        return builder.buildFuture();
+    }
+}
@@ -0,0 +1,26 @@
+package com.ivillager.config;
+
+import java.util.Set;
+
+/**
+ * Keys recognized in config.yml, plus names a shop should not use. Shared by {@link ConfigLoader} and the offline config compiler
+ * so both report the same unknown keys.
+ */
+public final class ConfigKeys {
+
+    public static final Set<String> TOP = Set.of(
+            "default_shop", "shops", "bulk_open_per_tick", "stats_snapshot_minutes", "admission", "sync"
+    );
+    public static final Set<String> SHOP = Set.of(
+            "type", "trades", "display_name", "profession", "level", "max_uses",
+            "experience", "price_multiplier", "buy_xp", "restock", "rotation"
+    );
+    public static final Set<String> ROTATION = Set.of("size", "period", "per_player");
+    public static final Set<String> TRADE = Set.of("item", "trade", "enchantments", "type", "weight");
+    /** Subcommands of /ivillager; a shop with one of these names cannot be opened with /ivillager <shop>. */
+    public static final Set<String> SUBCOMMANDS = Set.of(
+            "list", "search", "open", "stats", "queue", "reload", "events", "sync", "rollback", "create", "delete"
+    );
+
+    private ConfigKeys() {}
+}
@@ -1,82 +1,195 @@
 package com.ivillager.config;
 
+import com.ivillager.jfr.ConfigPhaseEvent;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.logging.Logger;
 
 /**
  * Loads and validates config.yml; returns a map of shop id -> ShopDefinition.
  * Handles unknown keys with a warning. Persists config for create/delete.
+ * Above {@link #STREAMING_THRESHOLD_BYTES} the file is never loaded as one tree: loads stream it
+ * with {@link StreamingShopReader} and shop edits rewrite it line by line with {@link ShopFileEditor}.
  */
 public final class ConfigLoader {
 
-    private static final Set<String> TOP_KEYS = Set.of("default_shop", "shops");
-    private static final Set<String> SHOP_KEYS = Set.of(
-            "type", "trades", "display_name", "profession", "level", "max_uses",
-            "experience", "price_multiplier", "buy_xp"
-    );
-    private static final Set<String> TRADE_KEYS = Set.of("item", "trade", "enchantments", "type");
+    /** Configs larger than this are streamed shop by shop instead of loaded as one tree. */
+    static final long STREAMING_THRESHOLD_BYTES = 1024 * 1024;
     private static final int DEFAULT_MAX_USES = 999999;
     private static final float DEFAULT_PRICE_MULTIPLIER = 0.05f;
 
     private final JavaPlugin plugin;
-    private final Logger logger;
-    private File configFile;
+    private final CountingLogger logger;
+    /** Parsed item prototypes, kept only for the duration of one load. */
+    private final Map<String, ItemStack> itemCache = new java.util.HashMap<>();
+    private final ShopFileEditor editor = new ShopFileEditor();
+    private final File configFile;
 
     public ConfigLoader(JavaPlugin plugin) {
         this.plugin = plugin;
-        this.logger = plugin.getLogger();
+        this.logger = new CountingLogger(plugin.getLogger());
+        this.configFile = new File(plugin.getDataFolder(), "config.yml");
     }
 
     /**
      * Load config from plugin data folder. Call from main thread.
+     * Files larger than {@link #STREAMING_THRESHOLD_BYTES} are read with {@link StreamingShopReader}
+     * so that only one shop's YAML is in memory at a time; both paths apply the same validation.
+     * If the file cannot be read or is not valid YAML, the result is {@link ConfigResult#isFailed() failed}
+     * and callers should keep the shops they have.
      */
     public ConfigResult load() {
         plugin.saveDefaultConfig();
-        configFile = new File(plugin.getDataFolder(), "config.yml");
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        logger.reset();
+        try {
+            return configFile.length() > STREAMING_THRESHOLD_BYTES ? loadStreaming() : loadTree();
+        } finally {
+            itemCache.clear();
+        }
+    }
+
+    private ConfigResult loadTree() {
+        ConfigPhaseEvent readPhase = new ConfigPhaseEvent();
+        readPhase.begin();
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(configFile);
+        } catch (IOException | InvalidConfigurationException e) {
+            logger.severe("[IVillager] Cannot load " + configFile + ": " + e.getMessage());
+            return ConfigResult.failed();
+        }
+        if (readPhase.shouldCommit()) {
+            readPhase.phase = ConfigPhaseEvent.READ;
+            readPhase.commit();
+        }
+
+        ConfigPhaseEvent parsePhase = new ConfigPhaseEvent();
+        parsePhase.begin();
+
+        warnUnknownTopKeys(config.getKeys(false));
+        String defaultShop = parseDefaultShop(config);
+
+        ConfigurationSection shopsSection = config.getConfigurationSection("shops");
+        Map<String, ShopDefinition> shops = new java.util.HashMap<>();
+        if (shopsSection != null) {
+            for (String shopId : shopsSection.getKeys(false)) {
+                addShop(shops, shopId, shopsSection.getConfigurationSection(shopId));
+            }
+        }
+        if (parsePhase.shouldCommit()) {
+            parsePhase.phase = ConfigPhaseEvent.PARSE;
+            parsePhase.shopCount = shops.size();
+            parsePhase.commit();
+        }
+        PluginSettings settings = PluginSettings.from(config, logger);
+        return new ConfigResult(shops, defaultShop, settings, summarize(shops));
+    }
 
-        for (String key : config.getKeys(false)) {
-            if (!TOP_KEYS.contains(key)) {
+    /**
+     * Streaming variant of {@link #load()}: reading and parsing are interleaved shop by shop,
+     * so a single "parse" phase event covers both. Each shop is wrapped in a throwaway
+     * MemoryConfiguration so it goes through exactly the same parseShop code.
+     */
+    private ConfigResult loadStreaming() {
+        ConfigPhaseEvent parsePhase = new ConfigPhaseEvent();
+        parsePhase.begin();
+        Map<String, ShopDefinition> shops = new java.util.HashMap<>();
+        Map<String, Object> top;
+        try (Reader reader = Files.newBufferedReader(configFile.toPath(), StandardCharsets.UTF_8)) {
+            top = new StreamingShopReader(logger).read(reader, (shopId, value) -> {
+                if (!(value instanceof Map<?, ?> map)) return;
+                MemoryConfiguration holder = new MemoryConfiguration();
+                addShop(shops, shopId, holder.createSection(shopId, map));
+            });
+        } catch (IOException | YAMLException e) {
+            logger.severe("[IVillager] Cannot load " + configFile + ": " + e.getMessage());
+            return ConfigResult.failed();
+        }
+        MemoryConfiguration config = new MemoryConfiguration();
+        for (Map.Entry<String, Object> e : top.entrySet()) {
+            if (e.getValue() instanceof Map<?, ?> map) {
+                config.createSection(e.getKey(), map);
+            } else {
+                config.set(e.getKey(), e.getValue());
+            }
+        }
+        Set<String> topKeys = new java.util.LinkedHashSet<>(top.keySet());
+        topKeys.add("shops");
+        warnUnknownTopKeys(topKeys);
+        String defaultShop = parseDefaultShop(config);
+        if (parsePhase.shouldCommit()) {
+            parsePhase.phase = ConfigPhaseEvent.PARSE;
+            parsePhase.shopCount = shops.size();
+            parsePhase.commit();
+        }
+        PluginSettings settings = PluginSettings.from(config, logger);
+        return new ConfigResult(shops, defaultShop, settings, summarize(shops));
+    }
+
+    private ValidationSummary summarize(Map<String, ShopDefinition> shops) {
+        int trades = 0;
+        for (ShopDefinition def : shops.values()) trades += def.tradeCount();
+        return new ValidationSummary(shops.size(), trades, logger.getWarnings());
+    }
+
+    private void warnUnknownTopKeys(Set<String> keys) {
+        for (String key : keys) {
+            if (!ConfigKeys.TOP.contains(key)) {
                 logger.warning("[IVillager] Unknown top-level config key: " + key);
             }
         }
+    }
 
+    private static String parseDefaultShop(ConfigurationSection config) {
         String defaultShop = config.getString("default_shop", null);
         if (defaultShop != null) defaultShop = defaultShop.trim();
         if (defaultShop != null && defaultShop.isEmpty()) defaultShop = null;
+        return defaultShop;
+    }
 
-        ConfigurationSection shopsSection = config.getConfigurationSection("shops");
-        Map<String, ShopDefinition> shops = new java.util.HashMap<>();
-        if (shopsSection != null) {
-            for (String shopId : shopsSection.getKeys(false)) {
-                ConfigurationSection shopSec = shopsSection.getConfigurationSection(shopId);
-                if (shopSec == null) continue;
-                for (String key : shopSec.getKeys(false)) {
-                    if (!SHOP_KEYS.contains(key)) {
-                        logger.warning("[IVillager] Unknown shop key '" + key + "' in shop '" + shopId + "'");
-                    }
-                }
-                ShopDefinition def = parseShop(shopId, shopSec);
-                if (def != null) {
-                    shops.put(shopId.toLowerCase(Locale.ROOT), def);
-                    if (def.getTrades().isEmpty()) {
-                        logger.info("[IVillager] Shop '" + shopId + "' has no valid trades (empty or all invalid).");
-                    }
-                }
+    /**
+     * Validate and parse one shop section and add it to {@code shops}.
+     */
+    private void addShop(Map<String, ShopDefinition> shops, String shopId, ConfigurationSection shopSec) {
+        if (shopSec == null) return;
+        for (String key : shopSec.getKeys(false)) {
+            if (!ConfigKeys.SHOP.contains(key)) {
+                logger.warning("[IVillager] Unknown shop key '" + key + "' in shop '" + shopId + "'");
+            }
+        }
+        ShopDefinition def = parseShop(shopId, shopSec);
+        if (def != null) {
+            String key = shopId.toLowerCase(Locale.ROOT);
+            if (ConfigKeys.SUBCOMMANDS.contains(key)) {
+                logger.warning("[IVillager] Shop '" + shopId + "' has the name of a subcommand; /ivillager " + key
+                        + " runs the subcommand. Open it with default_shop or /ivillager open, or rename it.");
+            }
+            shops.put(key, def);
+            if (def.tradeCount() == 0) {
+                logger.info("[IVillager] Shop '" + shopId + "' has no valid trades (empty or all invalid).");
             }
         }
-        return new ConfigResult(shops, defaultShop);
     }
 
     private ShopDefinition parseShop(String shopId, ConfigurationSection shopSec) {
@@ -87,6 +200,12 @@ public final class ConfigLoader {
         int experience = shopSec.getInt("experience", 0);
         double priceMultiplier = shopSec.getDouble("price_multiplier", DEFAULT_PRICE_MULTIPLIER);
         int buyXp = shopSec.getInt("buy_xp", 0);
+        String restockStr = shopSec.getString("restock", null);
+        RestockPolicy restock = RestockPolicy.parse(restockStr);
+        if (restockStr != null && !restockStr.isBlank() && restock == null) {
+            logger.warning("[IVillager] Shop '" + shopId + "' has invalid restock '" + restockStr + "' (use hourly, daily or e.g. 30m, 6h, 1d)");
+        }
+        RotationSettings rotation = parseRotation(shopId, shopSec.getConfigurationSection("rotation"));
 
         // YAML list entries ("- item: x / trade: y") are parsed as Map by Bukkit, not ConfigurationSection.
         // Use getMapList to get List<Map<String,Object>> and parse each map.
@@ -107,10 +226,33 @@ public final class ConfigLoader {
                 maxUses,
                 experience,
                 priceMultiplier,
-                buyXp
+                buyXp,
+                restock,
+                rotation
         );
     }
 
+    private RotationSettings parseRotation(String shopId, ConfigurationSection rotSec) {
+        if (rotSec == null) return null;
+        for (String key : rotSec.getKeys(false)) {
+            if (!ConfigKeys.ROTATION.contains(key)) {
+                logger.warning("[IVillager] Unknown rotation key '" + key + "' in shop '" + shopId + "'");
+            }
+        }
+        int size = rotSec.getInt("size", 0);
+        if (size < 1) {
+            logger.warning("[IVillager] Shop '" + shopId + "' rotation needs size >= 1; showing all trades.");
+            return null;
+        }
+        String periodStr = rotSec.getString("period", "daily");
+        long period = RotationSettings.parsePeriod(periodStr);
+        if (period < 0) {
+            logger.warning("[IVillager] Shop '" + shopId + "' has invalid rotation period '" + periodStr + "', using daily");
+            period = RotationSettings.parsePeriod("daily");
+        }
+        return new RotationSettings(size, period, rotSec.getBoolean("per_player", false));
+    }
+
     /**
      * Parse a single trade from a map (from getMapList). YAML list entries are Maps in Bukkit, not ConfigurationSections.
      */
@@ -118,12 +260,12 @@ public final class ConfigLoader {
         List<ItemStack> ingredients = new ArrayList<>();
         Object itemObj = map.get("item");
         if (itemObj instanceof String) {
-            ItemStack one = ItemParser.parseItem((String) itemObj, logger);
+            ItemStack one = ItemParser.parseItem((String) itemObj, logger, itemCache);
             if (one != null) ingredients.add(one);
         } else if (itemObj instanceof List) {
             for (Object o : (List<?>) itemObj) {
                 if (o instanceof String) {
-                    ItemStack s = ItemParser.parseItem((String) o, logger);
+                    ItemStack s = ItemParser.parseItem((String) o, logger, itemCache);
                     if (s != null) ingredients.add(s);
                 }
             }
@@ -140,12 +282,12 @@ public final class ConfigLoader {
         Object tradeObj = map.get("trade");
         List<ItemStack> resultList = new ArrayList<>();
         if (tradeObj instanceof String) {
-            List<ItemStack> parsed = ItemParser.parseItemList((String) tradeObj, logger);
+            List<ItemStack> parsed = ItemParser.parseItemList((String) tradeObj, logger, itemCache);
             resultList.addAll(parsed);
         } else if (tradeObj instanceof List) {
             for (Object o : (List<?>) tradeObj) {
                 if (o instanceof String) {
-                    ItemStack s = ItemParser.parseItem((String) o, logger);
+                    ItemStack s = ItemParser.parseItem((String) o, logger, itemCache);
                     if (s != null) resultList.add(s);
                 }
             }
@@ -163,30 +305,82 @@ public final class ConfigLoader {
                 ItemParser.applyEnchantments(result, enchantments, logger);
             }
         }
-        return new TradeDefinition(ingredients, result);
+        double weight = 1.0;
+        Object weightObj = map.get("weight");
+        if (weightObj instanceof Number) {
+            weight = ((Number) weightObj).doubleValue();
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                logger.warning("[IVillager] Shop '" + shopId + "' trade " + index + ": invalid weight, using 1");
+                weight = 1.0;
+            }
+        } else if (weightObj != null) {
+            logger.warning("[IVillager] Shop '" + shopId + "' trade " + index + ": weight must be a number, using 1");
+        }
+        return new TradeDefinition(ingredients, result, weight);
     }
 
     /**
      * Add a new shop to config and save. Call from main thread.
      */
-    public boolean createShop(String shopId) {
+    public synchronized boolean createShop(String shopId) {
+        String key = shopId.trim();
+        ShopFileEditor.Layout layout = scanLarge();
+        if (layout != null) {
+            if (layout.find(key) != null) return false;
+            return editLarge(layout, Map.of(key, newShopBody()));
+        }
         YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
         ConfigurationSection shops = config.getConfigurationSection("shops");
         if (shops == null) {
             shops = config.createSection("shops");
         }
-        String key = shopId.trim();
-        if (shops.get(key) != null) {
+        if (findShopKey(shops, key) != null) {
             return false;
         }
-        ConfigurationSection newShop = shops.createSection(key);
-        newShop.set("display_name", "IVillager");
+        shops.createSection(key, newShopBody());
+        try {
+            config.save(configFile);
+        } catch (IOException e) {
+            logger.severe("[IVillager] Failed to save config: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Body of a shop added with /ivillager create: one example trade to edit.
+     */
+    private static Map<String, Object> newShopBody() {
+        Map<String, Object> body = new java.util.LinkedHashMap<>();
+        body.put("display_name", "IVillager");
         List<Map<String, Object>> trades = new ArrayList<>();
-        Map<String, Object> one = new java.util.HashMap<>();
+        Map<String, Object> one = new java.util.LinkedHashMap<>();
         one.put("item", "cobblestone:64");
         one.put("trade", "diamond:1");
         trades.add(one);
-        newShop.set("trades", trades);
+        body.put("trades", trades);
+        return body;
+    }
+
+    /**
+     * Remove a shop from config and save, matching its name case-insensitively. Call from main thread.
+     */
+    public synchronized boolean deleteShop(String shopId) {
+        String key = shopId.trim();
+        ShopFileEditor.Layout layout = scanLarge();
+        if (layout != null) {
+            ShopFileEditor.Entry entry = layout.find(key);
+            if (entry == null) return false;
+            Map<String, Map<String, Object>> change = new java.util.HashMap<>(1);
+            change.put(key, null);
+            return editLarge(layout, change);
+        }
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
+        ConfigurationSection shops = config.getConfigurationSection("shops");
+        if (shops == null) return false;
+        String existing = findShopKey(shops, key);
+        if (existing == null) return false;
+        shops.set(existing, null);
         try {
             config.save(configFile);
         } catch (IOException e) {
@@ -197,17 +391,122 @@ public final class ConfigLoader {
     }
 
     /**
-     * Remove a shop from config and save. Call from main thread.
+     * YAML text of each given shop's section as currently saved in config.yml, for sending to
+     * other servers. Names match case-insensitively; shops missing from the file are left out.
+     *
+     * @return lower-case shop key -> YAML text of the shop body
      */
-    public boolean deleteShop(String shopId) {
+    public synchronized Map<String, String> exportShops(Collection<String> shopNames) {
+        Map<String, String> out = new java.util.HashMap<>();
+        if (shopNames.isEmpty()) return out;
+        if (isLarge()) {
+            Set<String> wanted = new java.util.HashSet<>();
+            for (String name : shopNames) wanted.add(name.trim().toLowerCase(Locale.ROOT));
+            try (Reader reader = Files.newBufferedReader(configFile.toPath(), StandardCharsets.UTF_8)) {
+                new StreamingShopReader(logger).read(reader, (shopId, value) -> {
+                    String key = shopId.toLowerCase(Locale.ROOT);
+                    if (value instanceof Map<?, ?> map && wanted.contains(key) && !out.containsKey(key)) {
+                        out.put(key, editor.dump(stringKeys(map)));
+                    }
+                });
+            } catch (IOException | YAMLException e) {
+                logger.severe("[IVillager] Cannot read " + configFile + ": " + e.getMessage());
+            }
+            return out;
+        }
         YamlConfiguration config = YamlConfiguration.loadConfiguration(configFile);
         ConfigurationSection shops = config.getConfigurationSection("shops");
-        if (shops == null) return false;
-        String key = shopId.trim();
-        if (shops.get(key) == null) return false;
-        config.set("shops." + key, null);
+        if (shops == null) return out;
+        for (String name : shopNames) {
+            String key = findShopKey(shops, name);
+            ConfigurationSection sec = key != null ? shops.getConfigurationSection(key) : null;
+            if (sec == null) continue;
+            YamlConfiguration body = new YamlConfiguration();
+            for (String k : sec.getKeys(false)) body.set(k, sec.get(k));
+            out.put(name.toLowerCase(Locale.ROOT), body.saveToString());
+        }
+        return out;
+    }
+
+    /**
+     * Validate a shop given as YAML text (the body of its section), with the same checks and
+     * warnings as a load. Does not touch config.yml.
+     *
+     * @return the definition, or null if the text is not valid YAML
+     */
+    public ShopDefinition parseShopText(String shopId, String yaml) {
+        YamlConfiguration body = new YamlConfiguration();
         try {
-            config.save(configFile);
+            body.loadFromString(yaml);
+        } catch (InvalidConfigurationException e) {
+            logger.warning("[IVillager] Invalid YAML for shop '" + shopId + "': " + e.getMessage());
+            return null;
+        }
+        Map<String, ShopDefinition> single = new java.util.HashMap<>(1);
+        try {
+            addShop(single, shopId, body);
+        } finally {
+            itemCache.clear();
+        }
+        return single.get(shopId.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Replace shops in config.yml with the given YAML bodies (matching names case-insensitively),
+     * removing those mapped to null, and save once. The file is replaced atomically, so a load
+     * running at the same time sees either the old or the new file. Safe to call from any thread;
+     * edits of config.yml through this class are serialized.
+     *
+     * @param changes shop name -> YAML body, or null to remove the shop
+     * @return false if a body is not valid YAML (nothing is written) or the file could not be saved
+     */
+    public synchronized boolean writeShops(Map<String, String> changes) {
+        if (changes.isEmpty()) return true;
+        ShopFileEditor.Layout layout = scanLarge();
+        if (layout != null) {
+            Map<String, Map<String, Object>> bodies = new java.util.LinkedHashMap<>();
+            for (Map.Entry<String, String> c : changes.entrySet()) {
+                Map<String, Object> body = null;
+                if (c.getValue() != null) {
+                    body = parseBody(c.getKey(), c.getValue());
+                    if (body == null) return false;
+                } else if (layout.find(c.getKey()) == null) {
+                    continue;
+                }
+                bodies.put(c.getKey().trim(), body);
+            }
+            return bodies.isEmpty() || editLarge(layout, bodies);
+        }
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            if (configFile.exists()) config.load(configFile);
+        } catch (IOException | InvalidConfigurationException e) {
+            logger.severe("[IVillager] Cannot read " + configFile + ": " + e.getMessage());
+            return false;
+        }
+        ConfigurationSection shops = config.getConfigurationSection("shops");
+        if (shops == null) shops = config.createSection("shops");
+        for (Map.Entry<String, String> c : changes.entrySet()) {
+            String key = findShopKey(shops, c.getKey());
+            if (c.getValue() == null) {
+                if (key != null) shops.set(key, null);
+                continue;
+            }
+            YamlConfiguration body = new YamlConfiguration();
+            try {
+                body.loadFromString(c.getValue());
+            } catch (InvalidConfigurationException e) {
+                logger.warning("[IVillager] Invalid YAML for shop '" + c.getKey() + "': " + e.getMessage());
+                return false;
+            }
+            if (key != null) shops.set(key, null);
+            ConfigurationSection sec = shops.createSection(key != null ? key : c.getKey().trim());
+            for (String k : body.getKeys(false)) sec.set(k, body.get(k));
+        }
+        Path tmp = configFile.toPath().resolveSibling(configFile.getName() + ".tmp");
+        try {
+            Files.writeString(tmp, config.saveToString(), StandardCharsets.UTF_8);
+            Files.move(tmp, configFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             logger.severe("[IVillager] Failed to save config: " + e.getMessage());
             return false;
@@ -215,6 +514,69 @@ public final class ConfigLoader {
         return true;
     }
 
+    private boolean isLarge() {
+        return configFile.length() > STREAMING_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Shop layout of a large config.yml, or null to use the whole-tree path (small file, or a
+     * layout the line editor cannot handle, e.g. a flow-style "shops" mapping).
+     */
+    private ShopFileEditor.Layout scanLarge() {
+        if (!isLarge()) return null;
+        try {
+            ShopFileEditor.Layout layout = editor.scan(configFile.toPath());
+            return layout.editable ? layout : null;
+        } catch (IOException | YAMLException e) {
+            logger.warning("[IVillager] Cannot scan " + configFile + " for streaming edits: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean editLarge(ShopFileEditor.Layout layout, Map<String, Map<String, Object>> changes) {
+        try {
+            editor.write(configFile.toPath(), layout, changes);
+            return true;
+        } catch (IOException e) {
+            logger.severe("[IVillager] Failed to save config: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Shop body YAML as a map, or null (with a warning) if it is not a valid YAML mapping.
+     */
+    private Map<String, Object> parseBody(String shopId, String yaml) {
+        Object parsed;
+        try {
+            LoaderOptions options = new LoaderOptions();
+            parsed = new Yaml(new SafeConstructor(options)).load(yaml);
+        } catch (YAMLException e) {
+            logger.warning("[IVillager] Invalid YAML for shop '" + shopId + "': " + e.getMessage());
+            return null;
+        }
+        if (parsed == null) return new java.util.LinkedHashMap<>();
+        if (!(parsed instanceof Map<?, ?> map)) {
+            logger.warning("[IVillager] Invalid YAML for shop '" + shopId + "': not a mapping");
+            return null;
+        }
+        return stringKeys(map);
+    }
+
+    private static Map<String, Object> stringKeys(Map<?, ?> map) {
+        Map<String, Object> out = new java.util.LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : map.entrySet()) out.put(String.valueOf(e.getKey()), e.getValue());
+        return out;
+    }
+
+    private static String findShopKey(ConfigurationSection shops, String shopId) {
+        String wanted = shopId.trim();
+        for (String key : shops.getKeys(false)) {
+            if (key.equalsIgnoreCase(wanted)) return key;
+        }
+        return null;
+    }
+
     public File getConfigFile() {
         return configFile;
     }
@@ -222,10 +584,30 @@ public final class ConfigLoader {
     public static final class ConfigResult {
         private final Map<String, ShopDefinition> shops;
         private final String defaultShop;
+        private final PluginSettings settings;
+        private final ValidationSummary summary;
+        private final boolean failed;
 
         public ConfigResult(Map<String, ShopDefinition> shops, String defaultShop) {
+            this(shops, defaultShop, PluginSettings.DEFAULTS, ValidationSummary.EMPTY);
+        }
+
+        public ConfigResult(Map<String, ShopDefinition> shops, String defaultShop, PluginSettings settings,
+                            ValidationSummary summary) {
+            this(shops, defaultShop, settings, summary, false);
+        }
+
+        private ConfigResult(Map<String, ShopDefinition> shops, String defaultShop, PluginSettings settings,
+                             ValidationSummary summary, boolean failed) {
             this.shops = shops != null ? new java.util.HashMap<>(shops) : new java.util.HashMap<>();
             this.defaultShop = defaultShop;
+            this.settings = settings != null ? settings : PluginSettings.DEFAULTS;
+            this.summary = summary != null ? summary : ValidationSummary.EMPTY;
+            this.failed = failed;
+        }
+
+        static ConfigResult failed() {
+            return new ConfigResult(null, null, PluginSettings.DEFAULTS, ValidationSummary.EMPTY, true);
         }
 
         public Map<String, ShopDefinition> getShops() {
@@ -235,5 +617,20 @@ public final class ConfigLoader {
         public String getDefaultShop() {
             return defaultShop;
         }
+
+        public PluginSettings getSettings() {
+            return settings;
+        }
+
+        public ValidationSummary getSummary() {
+            return summary;
+        }
+
+        /**
+         * True if config.yml could not be read or parsed; the result then holds no shops.
+         */
+        public boolean isFailed() {
+            return failed;
+        }
     }
 }
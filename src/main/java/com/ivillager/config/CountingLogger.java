@@ -0,0 +1,37 @@
+package com.ivillager.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Forwards every record to the plugin logger and counts warnings and errors, so a load can
+ * report how many problems it logged (including those from ItemParser). Shop writes from sync
+ * log through it off the main thread, so the count is atomic.
+ */
+final class CountingLogger extends Logger {
+
+    private final Logger delegate;
+    private final AtomicInteger warnings = new AtomicInteger();
+
+    CountingLogger(Logger delegate) {
+        super(delegate.getName(), null);
+        this.delegate = delegate;
+        setLevel(Level.ALL);
+    }
+
+    @Override
+    public void log(LogRecord record) {
+        if (record.getLevel().intValue() >= Level.WARNING.intValue()) warnings.incrementAndGet();
+        delegate.log(record);
+    }
+
+    int getWarnings() {
+        return warnings.get();
+    }
+
+    void reset() {
+        warnings.set(0);
+    }
+}
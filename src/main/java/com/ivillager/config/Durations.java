@@ -0,0 +1,51 @@
+package com.ivillager.config;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Duration values shared by shop keys such as "restock" and "rotation.period":
+ * "hourly", "daily", or a count with unit suffix m/h/d ("30m", "6h", "1d").
+ */
+final class Durations {
+
+    static final long MINUTE = 60_000L;
+    static final long HOUR = 60 * MINUTE;
+    static final long DAY = 24 * HOUR;
+
+    private Durations() {}
+
+    /**
+     * @return duration in milliseconds, or -1 if blank or invalid
+     */
+    static long parseMillis(String input) {
+        if (input == null || input.isBlank()) return -1;
+        String s = input.trim().toLowerCase(Locale.ROOT);
+        if ("hourly".equals(s)) return HOUR;
+        if ("daily".equals(s)) return DAY;
+        long unit;
+        switch (s.charAt(s.length() - 1)) {
+            case 'm' -> unit = MINUTE;
+            case 'h' -> unit = HOUR;
+            case 'd' -> unit = DAY;
+            default -> {
+                return -1;
+            }
+        }
+        try {
+            long n = Long.parseLong(s.substring(0, s.length() - 1).trim());
+            return n < 1 ? -1 : n * unit;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Index of the fixed window of length {@code periodMillis} containing {@code nowMillis},
+     * aligned to server-local time (so daily windows start at local midnight).
+     */
+    static long windowOf(long nowMillis, long periodMillis) {
+        long local = nowMillis + TimeZone.getDefault().getOffset(nowMillis);
+        return Math.floorDiv(local, periodMillis);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ivillager.config;
 
+import com.ivillager.jfr.ItemCacheMissEvent;
 import io.papermc.paper.datacomponent.DataComponentTypes;
 import io.papermc.paper.datacomponent.item.PotionContents;
 import org.bukkit.Material;
@@ -13,25 +14,21 @@ import org.bukkit.potion.PotionType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * Parses item strings "material:amount" and "material:amount:potion_type" for potions
- * and tipped arrows, and enchantment lists "enchant:level,enchant2:level".
+ * and tipped arrows, and enchantment lists "enchant:level,enchant2:level". The strings are split
+ * by {@link ItemSpec}; this class resolves the parts against the server's registries.
+ * Callers may pass a cache that lives for one config load: item strings that parse cleanly are
+ * kept there as prototypes and cloned on later calls, so configs repeating the same costs
+ * (e.g. "emerald:1") parse each string once per load. Nothing is cached across loads, so
+ * registry changes (e.g. from datapacks) are picked up by the next reload.
  * All Bukkit API usage must run on the main server thread.
  */
 public final class ItemParser {
 
-    private static final int MAX_ENCHANT_LEVEL = 255;
-    private static final int MIN_ENCHANT_LEVEL = 1;
-
-    private static final List<Material> POTION_TYPE_MATERIALS = List.of(
-            Material.POTION,
-            Material.SPLASH_POTION,
-            Material.LINGERING_POTION,
-            Material.TIPPED_ARROW
-    );
-
     private ItemParser() {}
 
     /**
@@ -45,41 +42,67 @@ public final class ItemParser {
      * @return ItemStack or null if invalid
      */
     public static ItemStack parseItem(String input, Logger logger) {
+        return parseItem(input, logger, null);
+    }
+
+    /**
+     * {@link #parseItem(String, Logger)} with a per-load prototype cache.
+     *
+     * @param cache trimmed input -> parsed prototype, owned by the caller; may be null.
+     *              Only inputs that parsed without warnings are added.
+     */
+    public static ItemStack parseItem(String input, Logger logger, Map<String, ItemStack> cache) {
         if (input == null || input.isBlank()) {
             return null;
         }
         String s = input.trim();
-        String[] parts = s.split(":", 3);
-        String matName = parts[0].trim();
-        int amount = 1;
-        String potionTypeName = null;
+        boolean[] warned = new boolean[1];
+        if (cache == null) {
+            return parseUncached(s, input, logger, warned);
+        }
+        ItemStack cached = cache.get(s);
+        if (cached != null) {
+            return cached.clone();
+        }
+        ItemCacheMissEvent event = new ItemCacheMissEvent();
+        event.begin();
+        ItemStack stack = parseUncached(s, input, logger, warned);
+        if (stack != null && !warned[0]) {
+            cache.put(s, stack.clone());
+        }
+        if (event.shouldCommit()) {
+            event.input = s;
+            event.valid = stack != null;
+            event.commit();
+        }
+        return stack;
+    }
 
-        if (parts.length >= 2) {
-            try {
-                amount = Integer.parseInt(parts[1].trim());
-                if (amount < 1) amount = 1;
-            } catch (NumberFormatException e) {
-                if (logger != null) {
-                    logger.warning("[IVillager] Invalid amount in item '" + input + "', using 1");
-                }
+    /**
+     * Parse without the cache. Sets {@code warned[0]} if a warning was logged, so that input is not cached
+     * and its warning is logged for every occurrence.
+     */
+    private static ItemStack parseUncached(String s, String input, Logger logger, boolean[] warned) {
+        ItemSpec spec = ItemSpec.parse(s);
+        if (spec.getAmountStatus() == ItemSpec.Amount.INVALID) {
+            warned[0] = true;
+            if (logger != null) {
+                logger.warning("[IVillager] Invalid amount in item '" + input + "', using 1");
             }
         }
-        if (parts.length >= 3) {
-            potionTypeName = parts[2].trim();
-        }
 
-        Material mat = Material.matchMaterial(matName);
+        Material mat = Material.matchMaterial(spec.getMaterial());
         if (mat == null || !mat.isItem()) {
             if (logger != null) {
-                logger.warning("[IVillager] Unknown or non-item material: " + matName);
+                logger.warning("[IVillager] Unknown or non-item material: " + spec.getMaterial());
             }
             return null;
         }
 
-        ItemStack stack = new ItemStack(mat, Math.min(amount, mat.getMaxStackSize()));
+        ItemStack stack = new ItemStack(mat, spec.getAmount(mat.getMaxStackSize()));
 
-        if (POTION_TYPE_MATERIALS.contains(mat) && potionTypeName != null && !potionTypeName.isEmpty()) {
-            applyPotionType(stack, potionTypeName, logger);
+        if (spec.getPotion() != null && ItemSpec.takesPotion(mat.getKey().getKey())) {
+            if (!tryApplyPotionType(stack, spec.getPotion(), logger)) warned[0] = true;
         }
 
         return stack;
@@ -94,10 +117,17 @@ public final class ItemParser {
      * @param logger for validation warnings; may be null
      */
     public static void applyPotionType(ItemStack stack, String potionTypeName, Logger logger) {
-        if (stack == null || potionTypeName == null || potionTypeName.isBlank()) return;
-        if (!POTION_TYPE_MATERIALS.contains(stack.getType())) return;
+        tryApplyPotionType(stack, potionTypeName, logger);
+    }
+
+    /**
+     * @return false if the potion type was unknown (a warning was logged)
+     */
+    private static boolean tryApplyPotionType(ItemStack stack, String potionTypeName, Logger logger) {
+        if (stack == null || potionTypeName == null || potionTypeName.isBlank()) return true;
+        if (!ItemSpec.takesPotion(stack.getType().getKey().getKey())) return true;
 
-        String normalized = potionTypeName.toUpperCase(Locale.ROOT).replace("-", "_").replace(" ", "_");
+        String normalized = ItemSpec.potionKey(potionTypeName).toUpperCase(Locale.ROOT);
         PotionType type;
         try {
             type = PotionType.valueOf(normalized);
@@ -105,11 +135,12 @@ public final class ItemParser {
             if (logger != null) {
                 logger.warning("[IVillager] Unknown potion type: " + potionTypeName + " (use e.g. healing, strong_healing, long_fire_resistance)");
             }
-            return;
+            return false;
         }
         // Use data component API so the potion displays as normal (e.g. "Potion of Healing") not "Uncraftable ..."
         PotionContents contents = PotionContents.potionContents().potion(type).build();
         stack.setData(DataComponentTypes.POTION_CONTENTS, contents);
+        return true;
     }
 
     /**
@@ -117,10 +148,17 @@ public final class ItemParser {
      * Used for trade result; vanilla supports only one result, so caller should take first or merge.
      */
     public static List<ItemStack> parseItemList(String input, Logger logger) {
+        return parseItemList(input, logger, null);
+    }
+
+    /**
+     * {@link #parseItemList(String, Logger)} with a per-load prototype cache; see {@link #parseItem(String, Logger, Map)}.
+     */
+    public static List<ItemStack> parseItemList(String input, Logger logger, Map<String, ItemStack> cache) {
         List<ItemStack> list = new ArrayList<>();
         if (input == null || input.isBlank()) return list;
         for (String part : input.split(",")) {
-            ItemStack stack = parseItem(part.trim(), logger);
+            ItemStack stack = parseItem(part.trim(), logger, cache);
             if (stack != null) list.add(stack);
         }
         return list;
@@ -134,30 +172,19 @@ public final class ItemParser {
         if (stack == null || enchantmentsStr == null || enchantmentsStr.isBlank()) return;
         ItemMeta meta = stack.getItemMeta();
         if (meta == null) return;
-        for (String part : enchantmentsStr.split(",")) {
-            String p = part.trim();
-            int colon = p.indexOf(':');
-            String name = colon >= 0 ? p.substring(0, colon).trim() : p;
-            int level = 1;
-            if (colon >= 0 && colon + 1 < p.length()) {
-                try {
-                    level = Integer.parseInt(p.substring(colon + 1).trim());
-                    level = Math.max(MIN_ENCHANT_LEVEL, Math.min(MAX_ENCHANT_LEVEL, level));
-                } catch (NumberFormatException ignored) {}
-            }
-            NamespacedKey key = NamespacedKey.minecraft(name.toLowerCase(Locale.ROOT).replace(" ", "_"));
-            Enchantment enchant = Registry.ENCHANTMENT.get(key);
+        for (ItemSpec.Enchant e : ItemSpec.parseEnchantments(enchantmentsStr)) {
+            Enchantment enchant = Registry.ENCHANTMENT.get(NamespacedKey.minecraft(e.key()));
             if (enchant == null) {
                 if (logger != null) {
-                    logger.warning("[IVillager] Unknown enchantment: " + name);
+                    logger.warning("[IVillager] Unknown enchantment: " + e.name());
                 }
                 continue;
             }
             try {
-                meta.addEnchant(enchant, level, true);
-            } catch (IllegalArgumentException e) {
+                meta.addEnchant(enchant, e.level(), true);
+            } catch (IllegalArgumentException ex) {
                 if (logger != null) {
-                    logger.warning("[IVillager] Cannot apply " + name + " to item: " + e.getMessage());
+                    logger.warning("[IVillager] Cannot apply " + e.name() + " to item: " + ex.getMessage());
                 }
             }
         }
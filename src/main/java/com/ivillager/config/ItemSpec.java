@@ -0,0 +1,163 @@
+package com.ivillager.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An item string "material:amount[:potion_type]" or an enchantment list "enchant:level,..."
+ * split into its parts, without looking any name up. {@link ItemParser} resolves the parts
+ * against the server's registries and the offline config validator against bundled name lists;
+ * both read item strings only through this class, so they agree on syntax, defaults and clamps.
+ */
+public final class ItemSpec {
+
+    public static final int MIN_ENCHANT_LEVEL = 1;
+    public static final int MAX_ENCHANT_LEVEL = 255;
+
+    /** Material keys that take a potion type as third part of the item string. */
+    public static final Set<String> POTION_MATERIALS = Set.of("potion", "splash_potion", "lingering_potion", "tipped_arrow");
+
+    public enum Amount {
+        /** Given and at least 1, or not given (1). */
+        OK,
+        /** Not a number; 1 is used. */
+        INVALID,
+        /** Below 1; 1 is used. */
+        BELOW_ONE
+    }
+
+    private final String material;
+    private final int amount;
+    private final Amount amountStatus;
+    private final String potion;
+
+    private ItemSpec(String material, int amount, Amount amountStatus, String potion) {
+        this.material = material;
+        this.amount = amount;
+        this.amountStatus = amountStatus;
+        this.potion = potion;
+    }
+
+    /**
+     * @param input e.g. "cobblestone:64", "potion:1:strong_healing"
+     * @return the parts, or null if {@code input} is null or blank
+     */
+    public static ItemSpec parse(String input) {
+        if (input == null || input.isBlank()) return null;
+        String[] parts = input.trim().split(":", 3);
+        int amount = 1;
+        Amount status = Amount.OK;
+        if (parts.length >= 2) {
+            try {
+                amount = Integer.parseInt(parts[1].trim());
+                if (amount < 1) {
+                    amount = 1;
+                    status = Amount.BELOW_ONE;
+                }
+            } catch (NumberFormatException e) {
+                status = Amount.INVALID;
+            }
+        }
+        String potion = parts.length >= 3 && !parts[2].isBlank() ? parts[2].trim() : null;
+        return new ItemSpec(parts[0].trim(), amount, status, potion);
+    }
+
+    /** Material name as written (trimmed). */
+    public String getMaterial() {
+        return material;
+    }
+
+    /**
+     * Material name normalized the way {@code Material.matchMaterial} does, in lower case
+     * (e.g. "Diamond Sword" -> "diamond_sword").
+     */
+    public String getMaterialKey() {
+        return material.toLowerCase(Locale.ROOT).replaceAll("\\s+", "_").replaceAll("\\W", "");
+    }
+
+    /** Amount as written, at least 1; see {@link #getAmount(int)}. */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Amount of the stack the server creates: at most one full stack of the material.
+     */
+    public int getAmount(int maxStackSize) {
+        return Math.min(amount, maxStackSize);
+    }
+
+    public Amount getAmountStatus() {
+        return amountStatus;
+    }
+
+    /** Potion type as written (trimmed), or null if none was given. */
+    public String getPotion() {
+        return potion;
+    }
+
+    /**
+     * Potion type in lower case with '-' and ' ' as '_' (e.g. "Strong-Healing" -> "strong_healing"),
+     * or null if none was given.
+     */
+    public String getPotionKey() {
+        return potion == null ? null : potionKey(potion);
+    }
+
+    /** Potion type name in lower case with '-' and ' ' as '_'. */
+    public static String potionKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+    }
+
+    /** Whether a material key takes a potion type. */
+    public static boolean takesPotion(String materialKey) {
+        return POTION_MATERIALS.contains(materialKey);
+    }
+
+    /**
+     * Split "enchant:level,enchant2:level". Empty entries are left out.
+     */
+    public static List<Enchant> parseEnchantments(String input) {
+        List<Enchant> out = new ArrayList<>();
+        if (input == null || input.isBlank()) return out;
+        for (String part : input.split(",")) {
+            String p = part.trim();
+            if (p.isEmpty()) continue;
+            int colon = p.indexOf(':');
+            String name = colon >= 0 ? p.substring(0, colon).trim() : p;
+            int level = 1;
+            boolean invalid = false;
+            boolean clamped = false;
+            if (colon >= 0 && colon + 1 < p.length()) {
+                try {
+                    int given = Integer.parseInt(p.substring(colon + 1).trim());
+                    level = Math.max(MIN_ENCHANT_LEVEL, Math.min(MAX_ENCHANT_LEVEL, given));
+                    clamped = level != given;
+                } catch (NumberFormatException e) {
+                    invalid = true;
+                }
+            }
+            out.add(new Enchant(p, name, level, invalid, clamped));
+        }
+        return out;
+    }
+
+    /**
+     * One entry of an enchantment list.
+     *
+     * @param text    the entry as written
+     * @param name    enchantment name as written
+     * @param level   level to apply, within {@link #MIN_ENCHANT_LEVEL}..{@link #MAX_ENCHANT_LEVEL}
+     * @param invalid whether the written level was not a number (1 is used)
+     * @param clamped whether the written level was outside that range
+     */
+    public record Enchant(String text, String name, int level, boolean invalid, boolean clamped) {
+
+        /** Enchantment key in lower case with ' ' as '_' (e.g. "Fire Aspect" -> "fire_aspect"). */
+        public String key() {
+            return name.toLowerCase(Locale.ROOT).replace(' ', '_');
+        }
+    }
+}
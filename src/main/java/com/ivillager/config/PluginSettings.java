@@ -0,0 +1,99 @@
+package com.ivillager.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.logging.Logger;
+
+/**
+ * Plugin-wide (non-shop) settings from the top level of config.yml.
+ */
+public final class PluginSettings {
+
+    public static final int DEFAULT_BULK_OPEN_PER_TICK = 20;
+    public static final int DEFAULT_STATS_SNAPSHOT_MINUTES = 60;
+    public static final double DEFAULT_MSPT_THRESHOLD = 45.0;
+    public static final double DEFAULT_TICK_BUDGET_MS = 2.0;
+    public static final int DEFAULT_MAX_QUEUE = 200;
+
+    public static final PluginSettings DEFAULTS = new PluginSettings(DEFAULT_BULK_OPEN_PER_TICK, DEFAULT_STATS_SNAPSHOT_MINUTES,
+            DEFAULT_MSPT_THRESHOLD, DEFAULT_TICK_BUDGET_MS, DEFAULT_MAX_QUEUE, SyncSettings.DISABLED);
+
+    private final int bulkOpenPerTick;
+    private final int statsSnapshotMinutes;
+    private final double msptThreshold;
+    private final double tickBudgetMs;
+    private final int maxQueue;
+    private final SyncSettings sync;
+
+    public PluginSettings(int bulkOpenPerTick, int statsSnapshotMinutes,
+                          double msptThreshold, double tickBudgetMs, int maxQueue, SyncSettings sync) {
+        this.bulkOpenPerTick = bulkOpenPerTick;
+        this.statsSnapshotMinutes = statsSnapshotMinutes;
+        this.msptThreshold = msptThreshold;
+        this.tickBudgetMs = tickBudgetMs;
+        this.maxQueue = maxQueue;
+        this.sync = sync;
+    }
+
+    /**
+     * Read settings from the top-level config section, falling back to defaults for invalid values.
+     */
+    static PluginSettings from(ConfigurationSection config, Logger logger) {
+        int perTick = config.getInt("bulk_open_per_tick", DEFAULT_BULK_OPEN_PER_TICK);
+        if (perTick < 1) {
+            logger.warning("[IVillager] bulk_open_per_tick must be at least 1, using " + DEFAULT_BULK_OPEN_PER_TICK);
+            perTick = DEFAULT_BULK_OPEN_PER_TICK;
+        }
+        int snapshotMinutes = config.getInt("stats_snapshot_minutes", DEFAULT_STATS_SNAPSHOT_MINUTES);
+        if (snapshotMinutes < 0) {
+            logger.warning("[IVillager] stats_snapshot_minutes must be 0 (off) or more, using " + DEFAULT_STATS_SNAPSHOT_MINUTES);
+            snapshotMinutes = DEFAULT_STATS_SNAPSHOT_MINUTES;
+        }
+        double mspt = config.getDouble("admission.mspt_threshold", DEFAULT_MSPT_THRESHOLD);
+        double budget = config.getDouble("admission.tick_budget_ms", DEFAULT_TICK_BUDGET_MS);
+        if (budget <= 0) {
+            logger.warning("[IVillager] admission.tick_budget_ms must be positive, using " + DEFAULT_TICK_BUDGET_MS);
+            budget = DEFAULT_TICK_BUDGET_MS;
+        }
+        int maxQueue = config.getInt("admission.max_queue", DEFAULT_MAX_QUEUE);
+        if (maxQueue < 0) {
+            logger.warning("[IVillager] admission.max_queue must be 0 or more, using " + DEFAULT_MAX_QUEUE);
+            maxQueue = DEFAULT_MAX_QUEUE;
+        }
+        return new PluginSettings(perTick, snapshotMinutes, mspt, budget, maxQueue, SyncSettings.from(config, logger));
+    }
+
+    /**
+     * Maximum shop menus opened per tick by bulk opens (/ivillager open &lt;shop&gt; &lt;selector&gt;).
+     */
+    public int getBulkOpenPerTick() {
+        return bulkOpenPerTick;
+    }
+
+    /**
+     * Minutes between stats/snapshot.yml writes (each write also starts a new stats window); 0 = off.
+     */
+    public int getStatsSnapshotMinutes() {
+        return statsSnapshotMinutes;
+    }
+
+    /** Average MSPT above which shop opens and reloads are queued; 0 or less = never queue. */
+    public double getMsptThreshold() {
+        return msptThreshold;
+    }
+
+    /** Milliseconds per tick spent draining queued opens and reloads. */
+    public double getTickBudgetMs() {
+        return tickBudgetMs;
+    }
+
+    /** Queued opens/reloads beyond this get the "shop is busy" reply. */
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /** Catalog replication between servers. */
+    public SyncSettings getSync() {
+        return sync;
+    }
+}
@@ -0,0 +1,86 @@
+package com.ivillager.config;
+
+import java.util.Locale;
+
+/**
+ * When a depleted trade becomes available again. Parsed from the shop key "restock":
+ * "hourly" (top of every hour), "daily" (server-local midnight), or a delay after the
+ * trade ran out such as "30m", "2h", "1d". Restocks are evaluated lazily from timestamps
+ * when a counter is read, so no task is scheduled per depleted trade.
+ */
+public final class RestockPolicy {
+
+    public enum Kind { HOURLY, DAILY, AFTER_DEPLETION }
+
+    private final Kind kind;
+    private final long delayMillis;
+
+    private RestockPolicy(Kind kind, long delayMillis) {
+        this.kind = kind;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Parse a restock value.
+     *
+     * @param input e.g. "hourly", "daily", "45m", "6h", "1d"
+     * @return policy, or null if the value is blank or invalid
+     */
+    public static RestockPolicy parse(String input) {
+        long millis = Durations.parseMillis(input);
+        if (millis < 0) return null;
+        String s = input.trim().toLowerCase(Locale.ROOT);
+        if ("hourly".equals(s)) return new RestockPolicy(Kind.HOURLY, millis);
+        if ("daily".equals(s)) return new RestockPolicy(Kind.DAILY, millis);
+        return new RestockPolicy(Kind.AFTER_DEPLETION, millis);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * For hourly/daily policies: index of the restock window containing {@code nowMillis}.
+     * Counters stamped with an older window are treated as restocked. Daily windows follow
+     * the server's local midnight.
+     */
+    public long windowOf(long nowMillis) {
+        return Durations.windowOf(nowMillis, delayMillis);
+    }
+
+    /**
+     * Whether a counter last stamped at {@code stamp} (window index for hourly/daily,
+     * depletion time for delay policies; 0 when not depleted) has restocked by {@code nowMillis}.
+     */
+    public boolean isRestocked(long stamp, long nowMillis) {
+        if (kind == Kind.AFTER_DEPLETION) {
+            return stamp != 0 && nowMillis - stamp >= delayMillis;
+        }
+        return windowOf(nowMillis) != stamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RestockPolicy other)) return false;
+        return kind == other.kind && delayMillis == other.delayMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return kind.hashCode() * 31 + Long.hashCode(delayMillis);
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case HOURLY -> "hourly";
+            case DAILY -> "daily";
+            case AFTER_DEPLETION -> (delayMillis / Durations.MINUTE) + "m";
+        };
+    }
+}
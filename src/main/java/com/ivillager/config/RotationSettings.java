@@ -0,0 +1,60 @@
+package com.ivillager.config;
+
+/**
+ * Shop key "rotation": show only {@code size} trades drawn from the shop's trades by their
+ * "weight", re-rolled every {@code period} ("hourly", "daily", "30m", ...). With
+ * {@code per_player} each player gets their own draw; otherwise everyone sees the same one.
+ * Draws are seeded from shop, time window and player, so they are reproducible.
+ */
+public final class RotationSettings {
+
+    private final int size;
+    private final long periodMillis;
+    private final boolean perPlayer;
+
+    public RotationSettings(int size, long periodMillis, boolean perPlayer) {
+        this.size = size;
+        this.periodMillis = periodMillis;
+        this.perPlayer = perPlayer;
+    }
+
+    /**
+     * Parse a rotation period value.
+     *
+     * @return period in milliseconds, or -1 if invalid
+     */
+    public static long parsePeriod(String input) {
+        return Durations.parseMillis(input);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    public boolean isPerPlayer() {
+        return perPlayer;
+    }
+
+    /**
+     * Index of the rotation window containing {@code nowMillis} (server-local time).
+     */
+    public long windowOf(long nowMillis) {
+        return Durations.windowOf(nowMillis, periodMillis);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RotationSettings other)) return false;
+        return size == other.size && periodMillis == other.periodMillis && perPlayer == other.perPlayer;
+    }
+
+    @Override
+    public int hashCode() {
+        return (size * 31 + Long.hashCode(periodMillis)) * 31 + (perPlayer ? 1 : 0);
+    }
+}
@@ -2,6 +2,7 @@ package com.ivillager.config;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * In-memory definition of a shop: display name, optional villager metadata, and trades.
@@ -17,6 +18,8 @@ public final class ShopDefinition {
     private final int experience;
     private final double priceMultiplier;
     private final int buyXp;
+    private final RestockPolicy restock;
+    private final RotationSettings rotation;
 
     public ShopDefinition(
             String name,
@@ -27,7 +30,9 @@ public final class ShopDefinition {
             int maxUses,
             int experience,
             double priceMultiplier,
-            int buyXp
+            int buyXp,
+            RestockPolicy restock,
+            RotationSettings rotation
     ) {
         this.name = name != null ? name : "";
         this.displayName = displayName != null ? displayName : "IVillager";
@@ -38,6 +43,8 @@ public final class ShopDefinition {
         this.experience = experience;
         this.priceMultiplier = priceMultiplier;
         this.buyXp = buyXp;
+        this.restock = restock;
+        this.rotation = rotation;
     }
 
     public String getName() {
@@ -52,6 +59,26 @@ public final class ShopDefinition {
         return new ArrayList<>(trades);
     }
 
+    /**
+     * Trade at {@code index} without copying the list.
+     *
+     * @throws IndexOutOfBoundsException if there is no such trade
+     */
+    public TradeDefinition getTrade(int index) {
+        return trades.get(index);
+    }
+
+    public int tradeCount() {
+        return trades.size();
+    }
+
+    /**
+     * Whether both shops list equal trades in the same order.
+     */
+    public boolean hasSameTrades(ShopDefinition other) {
+        return other != null && trades.equals(other.trades);
+    }
+
     public String getProfession() {
         return profession;
     }
@@ -75,4 +102,43 @@ public final class ShopDefinition {
     public int getBuyXp() {
         return buyXp;
     }
+
+    /**
+     * Restock schedule for max_uses, or null when uses reset every time the shop is opened.
+     */
+    public RestockPolicy getRestock() {
+        return restock;
+    }
+
+    /**
+     * Weighted random subset of trades to show, or null to show every trade in order.
+     */
+    public RotationSettings getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Value equality, used by ShopManager to detect which shops actually changed on reload.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ShopDefinition other)) return false;
+        return level == other.level
+                && maxUses == other.maxUses
+                && experience == other.experience
+                && Double.compare(priceMultiplier, other.priceMultiplier) == 0
+                && buyXp == other.buyXp
+                && name.equals(other.name)
+                && displayName.equals(other.displayName)
+                && Objects.equals(profession, other.profession)
+                && Objects.equals(restock, other.restock)
+                && Objects.equals(rotation, other.rotation)
+                && trades.equals(other.trades);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, displayName, trades, profession, level, maxUses, experience, priceMultiplier, buyXp, restock, rotation);
+    }
 }
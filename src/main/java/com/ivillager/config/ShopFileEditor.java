@@ -0,0 +1,265 @@
+package com.ivillager.config;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Edits shops in a large config.yml without loading it as one tree. A first pass over the YAML
+ * event stream records which lines each entry under "shops" spans; a second pass copies the file
+ * line by line to a temporary file, leaving out or replacing the edited shops and adding new ones
+ * after the last shop, then moves it over the original. Everything outside the edited shops,
+ * comments included, is copied unchanged, and written lines end with the file's own line
+ * separator. Only block-style "shops" mappings can be edited this
+ * way; for anything else {@link #scan} returns a layout that is not editable and callers fall back
+ * to loading the whole tree.
+ */
+final class ShopFileEditor {
+
+    private static final int DEFAULT_INDENT = 2;
+
+    private final LoaderOptions loaderOptions = new LoaderOptions();
+    private final Yaml dumper;
+
+    ShopFileEditor() {
+        loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(DEFAULT_INDENT);
+        options.setWidth(Integer.MAX_VALUE);
+        options.setSplitLines(false);
+        dumper = new Yaml(options);
+    }
+
+    /**
+     * Where each shop is in the file.
+     *
+     * @throws org.yaml.snakeyaml.error.YAMLException if the file is not valid YAML
+     */
+    Layout scan(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Iterator<Event> events = new Yaml(loaderOptions).parse(reader).iterator();
+            while (events.hasNext()) {
+                Event e = events.next();
+                if (e instanceof MappingStartEvent start) {
+                    if (start.isFlow()) return Layout.NOT_EDITABLE;
+                    break;
+                }
+                if (e instanceof ScalarEvent || e instanceof CollectionStartEvent) return Layout.NOT_EDITABLE;
+                if (e.is(Event.ID.StreamEnd)) return new Layout(true, false, DEFAULT_INDENT, -1, List.of());
+            }
+            while (events.hasNext()) {
+                Event key = events.next();
+                if (key.is(Event.ID.MappingEnd)) break;
+                if (!(key instanceof ScalarEvent keyScalar)) return Layout.NOT_EDITABLE;
+                Event value = events.next();
+                if (!"shops".equals(keyScalar.getValue())) {
+                    skip(value, events);
+                    continue;
+                }
+                if (!(value instanceof MappingStartEvent shops) || shops.isFlow()) return Layout.NOT_EDITABLE;
+                return scanShops(events);
+            }
+            return new Layout(true, false, DEFAULT_INDENT, -1, List.of());
+        }
+    }
+
+    private Layout scanShops(Iterator<Event> events) {
+        List<Entry> shops = new ArrayList<>();
+        int indent = DEFAULT_INDENT;
+        while (events.hasNext()) {
+            Event key = events.next();
+            if (key.is(Event.ID.MappingEnd)) break;
+            if (!(key instanceof ScalarEvent keyScalar)) return Layout.NOT_EDITABLE;
+            Mark start = keyScalar.getStartMark();
+            indent = start.getColumn();
+            int end = skip(events.next(), events);
+            shops.add(new Entry(keyScalar.getValue(), start.getLine(), Math.max(end, start.getLine() + 1)));
+        }
+        if (shops.isEmpty()) return Layout.NOT_EDITABLE;
+        return new Layout(true, true, indent, shops.get(shops.size() - 1).endLine, shops);
+    }
+
+    /**
+     * Consume the node starting at {@code first}.
+     *
+     * @return the line after the node's last content; block collection ends are marked at the next
+     * token, so only scalars, aliases and flow collection ends (which span their bracket) count
+     */
+    private static int skip(Event first, Iterator<Event> events) {
+        int end = endLine(first);
+        if (!(first instanceof CollectionStartEvent)) return end;
+        int depth = 1;
+        while (depth > 0 && events.hasNext()) {
+            Event e = events.next();
+            if (e instanceof CollectionStartEvent) depth++;
+            else if (e instanceof CollectionEndEvent) depth--;
+            end = Math.max(end, endLine(e));
+        }
+        return end;
+    }
+
+    private static int endLine(Event e) {
+        boolean precise = e instanceof ScalarEvent || e instanceof AliasEvent
+                || e instanceof CollectionEndEvent && e.getStartMark().getIndex() != e.getEndMark().getIndex();
+        if (!precise) return 0;
+        Mark mark = e.getEndMark();
+        return mark.getColumn() == 0 ? mark.getLine() : mark.getLine() + 1;
+    }
+
+    /**
+     * Apply shop edits in one pass and replace the file atomically.
+     *
+     * @param changes shop name (matched case-insensitively) -> new body, or null to remove the shop
+     */
+    void write(Path file, Layout layout, Map<String, Map<String, Object>> changes) throws IOException {
+        Map<Integer, Entry> byStart = new HashMap<>();
+        Map<Integer, List<String>> replacements = new HashMap<>();
+        List<String> added = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> c : changes.entrySet()) {
+            Entry existing = layout.find(c.getKey());
+            List<String> lines = c.getValue() != null ? render(existing != null ? existing.name : c.getKey(),
+                    c.getValue(), layout.indent) : List.of();
+            if (existing != null) {
+                byStart.put(existing.startLine, existing);
+                replacements.put(existing.startLine, lines);
+            } else {
+                added.addAll(lines);
+            }
+        }
+
+        String eol = lineSeparator(file);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            int lineNo = 0;
+            int skipUntil = -1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (lineNo == layout.insertLine) writeLines(out, added, eol);
+                Entry edited = byStart.get(lineNo);
+                if (edited != null) {
+                    writeLines(out, replacements.get(lineNo), eol);
+                    skipUntil = edited.endLine;
+                }
+                if (lineNo >= skipUntil) {
+                    out.write(line);
+                    out.write(eol);
+                }
+                lineNo++;
+            }
+            if (layout.insertLine >= lineNo) writeLines(out, added, eol);
+            if (!layout.hasShops && !added.isEmpty()) {
+                out.write("shops:");
+                out.write(eol);
+                writeLines(out, added, eol);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The separator that ends the first line of a file: "\r\n", "\r" or "\n" (also for files
+     * with a single line or none, as Bukkit writes).
+     */
+    static String lineSeparator(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') return "\n";
+                if (c == '\r') return in.read() == '\n' ? "\r\n" : "\r";
+            }
+        }
+        return "\n";
+    }
+
+    /**
+     * Block-style YAML text of a shop body (keys at column 0).
+     */
+    String dump(Map<String, Object> body) {
+        return body.isEmpty() ? "{}\n" : dumper.dump(body);
+    }
+
+    private List<String> render(String name, Map<String, Object> body, int indent) {
+        String pad = " ".repeat(indent);
+        String key = dumper.dump(name).stripTrailing();
+        List<String> lines = new ArrayList<>();
+        if (body.isEmpty()) {
+            lines.add(pad + key + ": {}");
+            return lines;
+        }
+        lines.add(pad + key + ":");
+        String childPad = " ".repeat(indent + DEFAULT_INDENT);
+        for (String l : dumper.dump(body).split("\n")) {
+            lines.add(l.isEmpty() ? l : childPad + l);
+        }
+        return lines;
+    }
+
+    private static void writeLines(BufferedWriter out, List<String> lines, String eol) throws IOException {
+        for (String l : lines) {
+            out.write(l);
+            out.write(eol);
+        }
+    }
+
+    /**
+     * Lines of the "shops" entries found by {@link #scan}.
+     */
+    static final class Layout {
+        static final Layout NOT_EDITABLE = new Layout(false, false, DEFAULT_INDENT, -1, List.of());
+
+        final boolean editable;
+        /** Whether the file has a non-empty block "shops" mapping; if not, edits append one. */
+        final boolean hasShops;
+        final int indent;
+        /** Line before which new shops are added: right after the last shop's content. */
+        final int insertLine;
+        private final Map<String, Entry> byName = new LinkedHashMap<>();
+
+        private Layout(boolean editable, boolean hasShops, int indent, int insertLine, List<Entry> shops) {
+            this.editable = editable;
+            this.hasShops = hasShops;
+            this.indent = indent;
+            this.insertLine = insertLine;
+            for (Entry e : shops) byName.putIfAbsent(e.name.toLowerCase(Locale.ROOT), e);
+        }
+
+        Entry find(String name) {
+            return byName.get(name.trim().toLowerCase(Locale.ROOT));
+        }
+
+        Map<String, Entry> getShops() {
+            return Collections.unmodifiableMap(byName);
+        }
+    }
+
+    /**
+     * One shop: its name as written and the lines [startLine, endLine) it spans (0-based).
+     */
+    record Entry(String name, int startLine, int endLine) {}
+}
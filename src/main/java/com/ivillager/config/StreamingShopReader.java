@@ -0,0 +1,171 @@
+package com.ivillager.config;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Reads config.yml from the YAML event stream instead of building the whole document tree.
+ * Each entry under "shops" is materialized as plain maps/lists on its own and handed to a
+ * callback before the next one is read, so peak memory is bounded by the largest single shop.
+ * Other top-level keys are small and returned as a map. Scalars are resolved and constructed by
+ * SnakeYAML's Resolver and SafeConstructor, the same classes behind YamlConfiguration, so both load
+ * paths see the same values. Aliases are not supported (they would require keeping earlier shops in
+ * memory): a shop or top-level key that uses one is rejected with a warning.
+ */
+public final class StreamingShopReader {
+
+    private final Logger logger;
+    private final LoaderOptions options = new LoaderOptions();
+    private final Resolver resolver = new Resolver();
+    private final ScalarConstructor constructor;
+    /** Anchor name of the first alias met while reading the current value, or null. */
+    private String alias;
+
+    /**
+     * @param logger for warnings; may be null
+     */
+    public StreamingShopReader(Logger logger) {
+        this.logger = logger;
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        this.constructor = new ScalarConstructor(options);
+    }
+
+    /**
+     * Stream the document.
+     *
+     * @param onShop called with (shop id, shop value) for every entry under "shops", in file order
+     * @return all other top-level keys and their values
+     * @throws org.yaml.snakeyaml.error.YAMLException if the document is not valid YAML
+     */
+    public Map<String, Object> read(Reader reader, BiConsumer<String, Object> onShop) {
+        Iterator<Event> events = new Yaml(options).parse(reader).iterator();
+        Map<String, Object> top = new LinkedHashMap<>();
+        while (events.hasNext()) {
+            Event e = events.next();
+            if (e instanceof MappingStartEvent) break;
+            if (e instanceof ScalarEvent || e instanceof SequenceStartEvent) {
+                warn("[IVillager] config.yml root is not a mapping; ignoring it.");
+                return top;
+            }
+        }
+        while (events.hasNext()) {
+            Event keyEvent = events.next();
+            if (keyEvent.is(Event.ID.MappingEnd)) break;
+            String key = String.valueOf(readValue(keyEvent, events));
+            if (!"shops".equals(key)) {
+                alias = null;
+                Object value = readValue(events.next(), events);
+                if (alias != null) {
+                    warn("[IVillager] Top-level key '" + key + "' uses YAML alias *" + alias
+                            + ", which is not supported for large configs; ignoring it.");
+                } else {
+                    top.put(key, value);
+                }
+                continue;
+            }
+            Event shopsStart = events.next();
+            if (!(shopsStart instanceof MappingStartEvent)) {
+                // Not a mapping (e.g. "shops:" left empty): consume it like any other value.
+                readValue(shopsStart, events);
+                continue;
+            }
+            while (events.hasNext()) {
+                Event shopKey = events.next();
+                if (shopKey.is(Event.ID.MappingEnd)) break;
+                String shopId = String.valueOf(readValue(shopKey, events));
+                alias = null;
+                Object value = readValue(events.next(), events);
+                if (alias != null) {
+                    warn("[IVillager] Shop '" + shopId + "' uses YAML alias *" + alias
+                            + ", which is not supported for large configs; skipping the shop.");
+                } else {
+                    onShop.accept(shopId, value);
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Materialize the node starting at {@code first} as String/Number/Boolean/null, Map or List.
+     */
+    private Object readValue(Event first, Iterator<Event> events) {
+        if (first instanceof ScalarEvent scalar) {
+            return resolveScalar(scalar);
+        }
+        if (first instanceof MappingStartEvent) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            while (events.hasNext()) {
+                Event k = events.next();
+                if (k.is(Event.ID.MappingEnd)) break;
+                String key = String.valueOf(readValue(k, events));
+                map.put(key, readValue(events.next(), events));
+            }
+            return map;
+        }
+        if (first instanceof SequenceStartEvent) {
+            List<Object> list = new ArrayList<>();
+            while (events.hasNext()) {
+                Event item = events.next();
+                if (item.is(Event.ID.SequenceEnd)) break;
+                list.add(readValue(item, events));
+            }
+            return list;
+        }
+        if (first instanceof AliasEvent aliasEvent && alias == null) {
+            alias = aliasEvent.getAnchor();
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the scalar's tag the way SnakeYAML's Composer does and construct it with SafeConstructor.
+     *
+     * @throws org.yaml.snakeyaml.error.YAMLException for tags SafeConstructor does not allow
+     */
+    private Object resolveScalar(ScalarEvent scalar) {
+        String value = scalar.getValue();
+        Tag tag;
+        if (scalar.getTag() != null && !"!".equals(scalar.getTag())) {
+            tag = new Tag(scalar.getTag());
+        } else {
+            tag = resolver.resolve(NodeId.scalar, value, scalar.getImplicit().canOmitTagInPlainScalar());
+        }
+        return constructor.construct(new ScalarNode(tag, value, scalar.getStartMark(), scalar.getEndMark(),
+                scalar.getScalarStyle()));
+    }
+
+    private void warn(String message) {
+        if (logger != null) logger.warning(message);
+    }
+
+    /** Exposes SafeConstructor's scalar construction for single nodes. */
+    private static final class ScalarConstructor extends SafeConstructor {
+        ScalarConstructor(LoaderOptions options) {
+            super(options);
+        }
+
+        Object construct(ScalarNode node) {
+            return constructObject(node);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ivillager.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * Catalog replication settings from the "sync" section of config.yml. Read at startup only;
+ * changing them needs a restart.
+ */
+public final class SyncSettings {
+
+    public enum Transport { PLUGIN_MESSAGE, DIRECTORY }
+
+    public static final SyncSettings DISABLED = new SyncSettings(false, Transport.PLUGIN_MESSAGE, "", "", "");
+    /** Shortest sync.secret accepted. */
+    static final int MIN_SECRET_LENGTH = 16;
+
+    private final boolean enabled;
+    private final Transport transport;
+    private final String directory;
+    private final String nodeId;
+    private final String secret;
+
+    public SyncSettings(boolean enabled, Transport transport, String directory, String nodeId, String secret) {
+        this.enabled = enabled;
+        this.transport = transport;
+        this.directory = directory;
+        this.nodeId = nodeId;
+        this.secret = secret;
+    }
+
+    static SyncSettings from(ConfigurationSection config, Logger logger) {
+        if (!config.getBoolean("sync.enabled", false)) return DISABLED;
+        String name = config.getString("sync.transport", "plugin_message").trim().toLowerCase(Locale.ROOT);
+        Transport transport;
+        switch (name) {
+            case "plugin_message" -> transport = Transport.PLUGIN_MESSAGE;
+            case "directory" -> transport = Transport.DIRECTORY;
+            default -> {
+                logger.warning("[IVillager] Unknown sync.transport '" + name + "' (use plugin_message or directory), using plugin_message");
+                transport = Transport.PLUGIN_MESSAGE;
+            }
+        }
+        String directory = config.getString("sync.directory", "").trim();
+        if (transport == Transport.DIRECTORY && directory.isEmpty()) {
+            logger.warning("[IVillager] sync.transport is directory but sync.directory is not set; sync disabled.");
+            return DISABLED;
+        }
+        // Received changes are written to config.yml, so every message must be signed.
+        String secret = config.getString("sync.secret", "");
+        if (secret.length() < MIN_SECRET_LENGTH) {
+            logger.warning("[IVillager] sync.secret must be set to the same value of at least " + MIN_SECRET_LENGTH
+                    + " characters on every server; sync disabled.");
+            return DISABLED;
+        }
+        return new SyncSettings(true, transport, directory, config.getString("sync.node_id", "").trim(), secret);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /** Shared directory used by the directory transport. */
+    public String getDirectory() {
+        return directory;
+    }
+
+    /** This server's id in version vectors; empty = generate one and keep it in sync/state.yml. */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Shared key that signs and checks every sync message. */
+    public String getSecret() {
+        return secret;
+    }
+}
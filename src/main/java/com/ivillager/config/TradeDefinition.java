@@ -4,27 +4,61 @@ import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * In-memory definition of a single trade: up to 2 ingredients and 1 result.
+ * Immutable: items are copied on the way in and cloned on every access, so a caller changing a
+ * returned ItemStack cannot alter the trade (or its equals/hashCode) for the rest of the server.
  * Vanilla MerchantRecipe supports only one result; multiple result items in config
  * are approximated (first item or merged same material) and documented in code.
+ * The weight is only used by shops with a rotation.
  */
 public final class TradeDefinition {
 
     private final List<ItemStack> ingredients; // max 2 for MerchantRecipe
     private final ItemStack result;
+    private final double weight;
 
     public TradeDefinition(List<ItemStack> ingredients, ItemStack result) {
-        this.ingredients = ingredients != null ? new ArrayList<>(ingredients) : new ArrayList<>();
-        this.result = result;
+        this(ingredients, result, 1.0);
     }
 
+    public TradeDefinition(List<ItemStack> ingredients, ItemStack result, double weight) {
+        this.ingredients = new ArrayList<>();
+        if (ingredients != null) {
+            for (ItemStack ing : ingredients) this.ingredients.add(ing != null ? ing.clone() : null);
+        }
+        this.result = result != null ? result.clone() : null;
+        this.weight = weight;
+    }
+
+    /** Copies of the ingredients. */
     public List<ItemStack> getIngredients() {
-        return new ArrayList<>(ingredients);
+        List<ItemStack> copy = new ArrayList<>(ingredients.size());
+        for (ItemStack ing : ingredients) copy.add(ing != null ? ing.clone() : null);
+        return copy;
     }
 
+    /** Copy of the result, or null. */
     public ItemStack getResult() {
-        return result;
+        return result != null ? result.clone() : null;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TradeDefinition other)) return false;
+        return ingredients.equals(other.ingredients) && Objects.equals(result, other.result)
+                && Double.compare(weight, other.weight) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ingredients, result, weight);
     }
 }
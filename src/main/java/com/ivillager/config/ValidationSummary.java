@@ -0,0 +1,37 @@
+package com.ivillager.config;
+
+/**
+ * Outcome of validating one config load: how many shops and trades were accepted and how
+ * many warnings (unknown keys, bad items, skipped trades, ...) were logged along the way.
+ */
+public final class ValidationSummary {
+
+    public static final ValidationSummary EMPTY = new ValidationSummary(0, 0, 0);
+
+    private final int shops;
+    private final int trades;
+    private final int warnings;
+
+    public ValidationSummary(int shops, int trades, int warnings) {
+        this.shops = shops;
+        this.trades = trades;
+        this.warnings = warnings;
+    }
+
+    public int getShops() {
+        return shops;
+    }
+
+    public int getTrades() {
+        return trades;
+    }
+
+    public int getWarnings() {
+        return warnings;
+    }
+
+    @Override
+    public String toString() {
+        return shops + " shops, " + trades + " trades, " + warnings + " warnings";
+    }
+}
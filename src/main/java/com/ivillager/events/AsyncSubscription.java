@@ -0,0 +1,164 @@
+package com.ivillager.events;
+
+import com.ivillager.api.ShopActivity;
+import com.ivillager.api.ShopEventStream;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * One async subscriber: a bounded queue filled by the main thread and drained in batches by
+ * at most one async task at a time. Counters other than {@code dropped} are written only by
+ * the draining task; {@code dropped} only by the main thread.
+ */
+final class AsyncSubscription implements ShopEventStream.Subscription {
+
+    private final Plugin plugin;
+    private final Plugin owner;
+    private final String name;
+    private final int maxBatch;
+    private final ShopEventStream.Overflow overflow;
+    private final Consumer<List<ShopActivity>> consumer;
+    private final BlockingQueue<ShopActivity> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Consumer<AsyncSubscription> onCancel;
+    private volatile boolean active = true;
+    private volatile long delivered;
+    private volatile long dropped;
+    private volatile long batches;
+    private volatile long errors;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    AsyncSubscription(Plugin plugin, Plugin owner, String name, int queueCapacity, int maxBatch,
+                      ShopEventStream.Overflow overflow, Consumer<List<ShopActivity>> consumer,
+                      Consumer<AsyncSubscription> onCancel) {
+        this.plugin = plugin;
+        this.owner = owner;
+        this.name = name;
+        this.maxBatch = maxBatch;
+        this.overflow = overflow;
+        this.consumer = consumer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Queue an event without blocking. Main thread only.
+     */
+    void offer(ShopActivity activity) {
+        if (!active) return;
+        if (!queue.offer(activity)) {
+            dropped++;
+            if (overflow == ShopEventStream.Overflow.UNSUBSCRIBE) {
+                plugin.getLogger().warning("[IVillager] Event subscriber '" + name + "' of " + owner.getName()
+                        + " fell " + queue.size() + " events behind; unsubscribed.");
+                cancel();
+                return;
+            }
+        }
+        if (draining.compareAndSet(false, true)) schedule();
+    }
+
+    private void schedule() {
+        try {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::drain);
+        } catch (IllegalPluginAccessException e) {
+            // Plugin is disabling; nothing will drain the queue any more.
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (active) {
+                List<ShopActivity> batch = new ArrayList<>(Math.min(maxBatch, queue.size()));
+                queue.drainTo(batch, maxBatch);
+                if (batch.isEmpty()) break;
+                long lag = System.currentTimeMillis() - batch.get(0).timeMillis();
+                lastLagMillis = lag;
+                if (lag > maxLagMillis) maxLagMillis = lag;
+                try {
+                    consumer.accept(Collections.unmodifiableList(batch));
+                } catch (Throwable t) {
+                    if (errors++ == 0) {
+                        plugin.getLogger().log(Level.WARNING, "[IVillager] Event subscriber '" + name + "' of "
+                                + owner.getName() + " threw; further errors are only counted.", t);
+                    }
+                }
+                delivered += batch.size();
+                batches++;
+            }
+        } finally {
+            draining.set(false);
+            // An event may have arrived after the last drainTo but before the flag was cleared.
+            if (active && !queue.isEmpty() && draining.compareAndSet(false, true)) schedule();
+        }
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void cancel() {
+        if (!active) return;
+        active = false;
+        queue.clear();
+        onCancel.accept(this);
+    }
+
+    @Override
+    public int getQueued() {
+        return queue.size();
+    }
+
+    @Override
+    public long getDelivered() {
+        return delivered;
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public long getBatches() {
+        return batches;
+    }
+
+    @Override
+    public long getErrors() {
+        return errors;
+    }
+
+    @Override
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    @Override
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ivillager.events;
+
+import com.ivillager.api.ShopActivity;
+import com.ivillager.api.ShopEventStream;
+import com.ivillager.api.event.ShopOpenedEvent;
+import com.ivillager.api.event.StockDepletedEvent;
+import com.ivillager.api.event.TradeCompletedEvent;
+import com.ivillager.config.TradeDefinition;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Publishes IVillager events: fires the Bukkit events in {@code com.ivillager.api.event} for
+ * synchronous listeners and appends an immutable {@link ShopActivity} to every async
+ * subscriber's queue. Events are only built when someone listens, so an idle API costs two
+ * checks per open or trade. Publish methods must be called from the main thread.
+ */
+public final class EventDispatcher implements ShopEventStream, Listener {
+
+    private final Plugin plugin;
+    private final List<AsyncSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public EventDispatcher(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public Subscription subscribe(Plugin owner, String name, int queueCapacity, int maxBatch, Overflow overflow,
+                                  Consumer<List<ShopActivity>> consumer) {
+        if (queueCapacity < 1 || maxBatch < 1) throw new IllegalArgumentException("queueCapacity and maxBatch must be at least 1");
+        AsyncSubscription subscription = new AsyncSubscription(plugin, owner, name, queueCapacity, maxBatch,
+                overflow != null ? overflow : Overflow.DROP_EVENTS, consumer, subscriptions::remove);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    @Override
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    public void shopOpened(Player player, String shop, int recipeCount) {
+        if (ShopOpenedEvent.getHandlerList().getRegisteredListeners().length > 0) {
+            plugin.getServer().getPluginManager().callEvent(new ShopOpenedEvent(player, shop, recipeCount));
+        }
+        publish(ShopActivity.Type.SHOP_OPENED, player, shop, -1);
+    }
+
+    /**
+     * @param trade the trade from the shop definition the menu was built from; its result is only
+     *              copied when a {@link TradeCompletedEvent} listener is registered
+     */
+    public void tradeCompleted(Player player, String shop, int tradeIndex, TradeDefinition trade) {
+        if (TradeCompletedEvent.getHandlerList().getRegisteredListeners().length > 0) {
+            // getResult() copies the item, so only pay for it when someone listens.
+            plugin.getServer().getPluginManager().callEvent(
+                    new TradeCompletedEvent(player, shop, tradeIndex, trade.getResult()));
+        }
+        publish(ShopActivity.Type.TRADE_COMPLETED, player, shop, tradeIndex);
+    }
+
+    public void stockDepleted(Player player, String shop, int tradeIndex) {
+        if (StockDepletedEvent.getHandlerList().getRegisteredListeners().length > 0) {
+            plugin.getServer().getPluginManager().callEvent(new StockDepletedEvent(player, shop, tradeIndex));
+        }
+        publish(ShopActivity.Type.STOCK_DEPLETED, player, shop, tradeIndex);
+    }
+
+    private void publish(ShopActivity.Type type, Player player, String shop, int tradeIndex) {
+        if (subscriptions.isEmpty()) return;
+        ShopActivity activity = new ShopActivity(type, shop, player.getUniqueId(), player.getName(),
+                tradeIndex, System.currentTimeMillis());
+        for (AsyncSubscription s : subscriptions) s.offer(activity);
+    }
+
+    @EventHandler
+    public void onPluginDisable(PluginDisableEvent event) {
+        for (AsyncSubscription s : subscriptions) {
+            if (s.getOwner() == event.getPlugin()) s.cancel();
+        }
+    }
+
+    /**
+     * Cancel all subscriptions (IVillager is disabling).
+     */
+    public void shutdown() {
+        for (AsyncSubscription s : subscriptions) s.cancel();
+    }
+}
@@ -0,0 +1,32 @@
+package com.ivillager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one phase of a config load or reload: "read" (file to YAML tree),
+ * "parse" (YAML to shop definitions) and "publish" (swap into ShopManager). Disabled by default.
+ */
+@Name("com.ivillager.ConfigPhase")
+@Label("Config Load Phase")
+@Category("IVillager")
+@Description("One phase of loading config.yml into shops")
+@Enabled(false)
+@StackTrace(false)
+public final class ConfigPhaseEvent extends Event {
+
+    public static final String READ = "read";
+    public static final String PARSE = "parse";
+    public static final String PUBLISH = "publish";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Shop Count")
+    public int shopCount;
+}
@@ -0,0 +1,28 @@
+package com.ivillager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when ItemParser has to parse an item string it has not cached yet.
+ * Disabled by default.
+ */
+@Name("com.ivillager.ItemCacheMiss")
+@Label("Item Parse Cache Miss")
+@Category("IVillager")
+@Description("An item string was parsed from scratch instead of cloned from the cache")
+@Enabled(false)
+@StackTrace(false)
+public final class ItemCacheMissEvent extends Event {
+
+    @Label("Input")
+    public String input;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,29 @@
+package com.ivillager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning ShopManager.openShop: merchant creation, recipe build and menu open.
+ * Disabled by default; enable with e.g. {@code jfr configure +com.ivillager.ShopOpen#enabled=true}
+ * or a .jfc that turns it on.
+ */
+@Name("com.ivillager.ShopOpen")
+@Label("Shop Open")
+@Category("IVillager")
+@Description("A shop menu was built and opened for a player")
+@Enabled(false)
+@StackTrace(false)
+public final class ShopOpenEvent extends Event {
+
+    @Label("Shop")
+    public String shop;
+
+    @Label("Recipe Count")
+    public int recipeCount;
+}
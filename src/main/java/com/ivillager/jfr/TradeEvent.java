@@ -0,0 +1,27 @@
+package com.ivillager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event emitted when a player completes a trade in an IVillager menu. Disabled by default.
+ */
+@Name("com.ivillager.Trade")
+@Label("Trade Completed")
+@Category("IVillager")
+@Description("A player completed a trade in an IVillager shop")
+@Enabled(false)
+@StackTrace(false)
+public final class TradeEvent extends Event {
+
+    @Label("Shop")
+    public String shop;
+
+    @Label("Trade Index")
+    public int tradeIndex;
+}
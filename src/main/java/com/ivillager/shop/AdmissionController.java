@@ -0,0 +1,179 @@
+package com.ivillager.shop;
+
+import org.bukkit.Bukkit;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Defers shop opens and reloads while the server is over its tick budget. When the recent
+ * average MSPT is above the threshold (or work is already queued, to keep order), submitted work
+ * is queued and drained by {@link #run()} each tick within a time budget. When the queue is full
+ * the caller's busy fallback runs instead. At most one menu open per player waits in the queue.
+ * Must be used from the main server thread; schedule this as a repeating task every tick.
+ */
+public final class AdmissionController implements Runnable {
+
+    public enum Admission { RUN_NOW, QUEUED, REJECTED }
+
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    /** Queued menu open of each player, so a newer open replaces it instead of queuing twice. */
+    private final Map<UUID, Pending> opens = new HashMap<>();
+    private double msptThreshold;
+    private long tickBudgetNanos;
+    private int maxQueue;
+    private long deferred;
+    private long rejected;
+    private long replaced;
+    private long skipped;
+    /** Time the last drains ran past their budget; later ticks pay it back before running more. */
+    private long debtNanos;
+
+    public AdmissionController(double msptThreshold, double tickBudgetMs, int maxQueue) {
+        configure(msptThreshold, tickBudgetMs, maxQueue);
+    }
+
+    /**
+     * Apply new limits (on reload). A threshold of 0 or less disables admission control.
+     */
+    public void configure(double msptThreshold, double tickBudgetMs, int maxQueue) {
+        this.msptThreshold = msptThreshold;
+        this.tickBudgetNanos = (long) (tickBudgetMs * 1_000_000L);
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Run {@code work} now if the server has headroom, otherwise queue it.
+     *
+     * @param onBusy run instead of queuing when the queue is full
+     */
+    public Admission submit(Runnable work, Runnable onBusy) {
+        if (queue.isEmpty() && !isOverloaded()) {
+            work.run();
+            return Admission.RUN_NOW;
+        }
+        if (queue.size() >= maxQueue) {
+            rejected++;
+            onBusy.run();
+            return Admission.REJECTED;
+        }
+        queue.add(new Pending(null, work, null));
+        deferred++;
+        return Admission.QUEUED;
+    }
+
+    /**
+     * Open a menu for a player now if the server has headroom, otherwise queue it. If the player
+     * already has an open waiting, it is replaced (keeping its place in the queue).
+     *
+     * @param stillWanted checked before a queued open runs; if false the open is dropped
+     *                    (e.g. the player left or has opened another view in the meantime)
+     * @param onBusy run instead of queuing when the queue is full
+     */
+    public Admission submitOpen(UUID playerId, Runnable open, BooleanSupplier stillWanted, Runnable onBusy) {
+        Pending waiting = opens.get(playerId);
+        if (waiting != null) {
+            waiting.work = open;
+            waiting.stillWanted = stillWanted;
+            replaced++;
+            return Admission.QUEUED;
+        }
+        if (queue.isEmpty() && !isOverloaded()) {
+            open.run();
+            return Admission.RUN_NOW;
+        }
+        if (queue.size() >= maxQueue) {
+            rejected++;
+            onBusy.run();
+            return Admission.REJECTED;
+        }
+        Pending pending = new Pending(playerId, open, stillWanted);
+        queue.add(pending);
+        opens.put(playerId, pending);
+        deferred++;
+        return Admission.QUEUED;
+    }
+
+    /**
+     * True when admission control is enabled and average MSPT is above the threshold.
+     */
+    public boolean isOverloaded() {
+        return msptThreshold > 0 && getMspt() > msptThreshold;
+    }
+
+    /**
+     * Drain queued work for up to the tick budget. An item that overruns the budget is paid back
+     * on later ticks, which run nothing until the overrun is used up, so one slow item per tick
+     * cannot keep the server over budget.
+     */
+    @Override
+    public void run() {
+        if (queue.isEmpty()) {
+            debtNanos = 0;
+            return;
+        }
+        long allowance = tickBudgetNanos - debtNanos;
+        if (allowance <= 0) {
+            debtNanos -= tickBudgetNanos;
+            return;
+        }
+        long start = System.nanoTime();
+        long elapsed = 0;
+        while (!queue.isEmpty() && elapsed < allowance) {
+            Pending next = queue.poll();
+            if (next.playerId != null) opens.remove(next.playerId);
+            if (next.stillWanted == null || next.stillWanted.getAsBoolean()) {
+                next.work.run();
+            } else {
+                skipped++;
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        debtNanos = Math.max(0, elapsed - allowance);
+    }
+
+    /** Average milliseconds per tick over Paper's recent sample window. */
+    public double getMspt() {
+        return Bukkit.getServer().getAverageTickTime();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Total submissions that were queued instead of run immediately. */
+    public long getDeferredCount() {
+        return deferred;
+    }
+
+    /** Total submissions turned away because the queue was full. */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /** Total queued menu opens replaced by a newer open of the same player. */
+    public long getReplacedCount() {
+        return replaced;
+    }
+
+    /** Total queued menu opens dropped because they were no longer wanted when their turn came. */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    private static final class Pending {
+        final UUID playerId;
+        Runnable work;
+        BooleanSupplier stillWanted;
+
+        Pending(UUID playerId, Runnable work, BooleanSupplier stillWanted) {
+            this.playerId = playerId;
+            this.work = work;
+            this.stillWanted = stillWanted;
+        }
+    }
+}
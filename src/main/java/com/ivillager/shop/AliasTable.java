@@ -0,0 +1,82 @@
+package com.ivillager.shop;
+
+import java.util.SplittableRandom;
+
+/**
+ * Walker/Vose alias table: after O(n) construction, draws an index with probability
+ * proportional to its weight in O(1) (one uniform int and one uniform double).
+ * Entries with weight 0 are left out of the table, so they are never drawn.
+ */
+final class AliasTable {
+
+    private final double[] prob;
+    private final int[] alias;
+    /** Original index of each table column (only positive weights get a column). */
+    private final int[] index;
+
+    /**
+     * @param weights non-negative weights; at least one must be positive
+     * @throws IllegalArgumentException if no weight is positive
+     */
+    AliasTable(double[] weights) {
+        int n = 0;
+        double total = 0;
+        for (double w : weights) {
+            if (w > 0) {
+                n++;
+                total += w;
+            }
+        }
+        if (n == 0 || !(total > 0)) throw new IllegalArgumentException("no positive weight");
+
+        index = new int[n];
+        prob = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallTop = 0;
+        int largeTop = 0;
+        for (int i = 0, c = 0; i < weights.length; i++) {
+            if (!(weights[i] > 0)) continue;
+            index[c] = i;
+            scaled[c] = weights[i] * n / total;
+            if (scaled[c] < 1.0) small[smallTop++] = c;
+            else large[largeTop++] = c;
+            c++;
+        }
+        while (smallTop > 0 && largeTop > 0) {
+            int s = small[--smallTop];
+            int l = large[--largeTop];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallTop++] = l;
+            else large[largeTop++] = l;
+        }
+        // Leftovers are 1.0 up to floating-point error; every column has a positive weight.
+        while (largeTop > 0) {
+            int l = large[--largeTop];
+            prob[l] = 1.0;
+            alias[l] = l;
+        }
+        while (smallTop > 0) {
+            int s = small[--smallTop];
+            prob[s] = 1.0;
+            alias[s] = s;
+        }
+    }
+
+    /** Number of entries with a positive weight. */
+    int size() {
+        return prob.length;
+    }
+
+    /**
+     * Draw one index into the original weights.
+     */
+    int sample(SplittableRandom random) {
+        int i = random.nextInt(prob.length);
+        return index[random.nextDouble() < prob[i] ? i : alias[i]];
+    }
+}
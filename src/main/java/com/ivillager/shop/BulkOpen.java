@@ -0,0 +1,130 @@
+package com.ivillager.shop;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Opens one shop for many players, at most {@code perTick} menus per tick. All targets share the
+ * shop's compiled recipe template; copies are only made for players with tracked stock uses.
+ * Later batches wait while the server is overloaded (see {@link AdmissionController}).
+ * When the last batch has run, the final counts are passed to the completion callback.
+ * Must be started from the main server thread.
+ */
+public final class BulkOpen extends BukkitRunnable {
+
+    private final ShopManager shopManager;
+    private final AdmissionController admission;
+    private final String shopName;
+    private final int perTick;
+    private final Deque<UUID> pending;
+    private final Consumer<Result> onComplete;
+    private int opened;
+    private int skipped;
+
+    private BulkOpen(ShopManager shopManager, AdmissionController admission, String shopName, int perTick,
+                     Deque<UUID> pending, Consumer<Result> onComplete) {
+        this.shopManager = shopManager;
+        this.admission = admission;
+        this.shopName = shopName;
+        this.perTick = perTick;
+        this.pending = pending;
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * Open the shop for the first {@code perTick} players now and schedule the rest over later ticks.
+     * Non-player and offline targets are skipped; duplicates are opened once.
+     *
+     * @param onComplete called once on the main thread with the final counts (deferred 0), after the
+     *                   last deferred batch or right away if nothing was deferred; may be null
+     * @return counts of menus opened now, deferred to later ticks, and skipped so far
+     */
+    public static Result start(Plugin plugin, ShopManager shopManager, AdmissionController admission,
+                               String shopName, Collection<? extends Entity> targets, int perTick,
+                               Consumer<Result> onComplete) {
+        Set<UUID> unique = new LinkedHashSet<>();
+        int skipped = 0;
+        for (Entity e : targets) {
+            if (!(e instanceof Player p) || !p.isOnline() || !unique.add(p.getUniqueId())) skipped++;
+        }
+        BulkOpen task = new BulkOpen(shopManager, admission, shopName, Math.max(1, perTick),
+                new ArrayDeque<>(unique), onComplete);
+        task.skipped = skipped;
+        if (!admission.isOverloaded()) task.openBatch();
+        Result now = new Result(task.opened, task.pending.size(), task.skipped);
+        if (task.pending.isEmpty()) {
+            task.complete();
+        } else {
+            task.runTaskTimer(plugin, 1L, 1L);
+        }
+        return now;
+    }
+
+    @Override
+    public void run() {
+        if (admission.isOverloaded()) return;
+        openBatch();
+        if (pending.isEmpty()) {
+            cancel();
+            complete();
+        }
+    }
+
+    private void openBatch() {
+        int batch = 0;
+        while (batch < perTick && !pending.isEmpty()) {
+            Player player = Bukkit.getPlayer(pending.poll());
+            if (player == null || !shopManager.openShop(player, shopName)) {
+                skipped++;
+                continue;
+            }
+            batch++;
+        }
+        opened += batch;
+    }
+
+    private void complete() {
+        if (onComplete != null) onComplete.accept(new Result(opened, 0, skipped));
+    }
+
+    /**
+     * Counts of a bulk open, either when it starts or when it has finished.
+     */
+    public static final class Result {
+        private final int opened;
+        private final int deferred;
+        private final int skipped;
+
+        Result(int opened, int deferred, int skipped) {
+            this.opened = opened;
+            this.deferred = deferred;
+            this.skipped = skipped;
+        }
+
+        /** Menus opened immediately. */
+        public int getOpened() {
+            return opened;
+        }
+
+        /** Players queued for later ticks; always 0 in the final counts. */
+        public int getDeferred() {
+            return deferred;
+        }
+
+        /** Targets that were not online players, duplicates, or went offline. */
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+}
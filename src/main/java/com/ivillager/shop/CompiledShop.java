@@ -0,0 +1,172 @@
+package com.ivillager.shop;
+
+import com.ivillager.config.RotationSettings;
+import com.ivillager.config.ShopDefinition;
+import com.ivillager.config.TradeDefinition;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.MerchantRecipe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Recipe template for one shop definition, compiled once and shared by every player who opens it.
+ * Templates start at 0 uses and are never modified after compile, so menus without per-player state
+ * are given the templates themselves: Merchant#setRecipes converts each Bukkit recipe into its own
+ * server-side offer, so uses counted in one menu never reach the template or another menu.
+ * Only recipes that start at a player's tracked uses are copied by {@link #instantiate}.
+ * Shops with a rotation also carry a {@link RotationSampler} over the template weights, built here once.
+ * Each template also has a {@link TradeKey} built from the trade's items rather than its position,
+ * so stock counters survive reloads that reorder, add or remove other trades.
+ */
+final class CompiledShop {
+
+    static final int DEFAULT_MAX_USES = 999999;
+
+    private final ShopDefinition shop;
+    private final List<MerchantRecipe> templates;
+    private final int[] tradeIndices;
+    private final TradeKey[] tradeKeys;
+    private final Set<TradeKey> tradeKeySet;
+    private final RotationSampler pool;
+
+    private CompiledShop(ShopDefinition shop, List<MerchantRecipe> templates, int[] tradeIndices, TradeKey[] tradeKeys,
+                         RotationSampler pool) {
+        this.shop = shop;
+        this.templates = templates;
+        this.tradeIndices = tradeIndices;
+        this.tradeKeys = tradeKeys;
+        this.tradeKeySet = Set.of(tradeKeys);
+        this.pool = pool;
+    }
+
+    /**
+     * Build recipe templates from a shop definition, skipping invalid trades.
+     * Vanilla MerchantRecipe supports at most 2 ingredients and 1 result per trade.
+     */
+    static CompiledShop compile(ShopDefinition shop) {
+        List<MerchantRecipe> templates = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        List<TradeKey> keys = new ArrayList<>();
+        Map<List<ItemStack>, Integer> occurrences = new HashMap<>();
+        int maxUses = maxUses(shop);
+        float priceMultiplier = (float) (shop.getPriceMultiplier() > 0 ? shop.getPriceMultiplier() : 0.05f);
+        int villagerXp = shop.getBuyXp();
+
+        List<TradeDefinition> trades = shop.getTrades();
+        for (int i = 0; i < trades.size(); i++) {
+            TradeDefinition t = trades.get(i);
+            ItemStack result = t.getResult();
+            if (result == null) continue;
+            List<ItemStack> ingredients = new ArrayList<>();
+            for (ItemStack ing : t.getIngredients()) {
+                if (ing != null && !ing.getType().isAir()) {
+                    ingredients.add(ing);
+                }
+            }
+            if (ingredients.isEmpty()) continue;
+            MerchantRecipe recipe = new MerchantRecipe(
+                    result,
+                    0,
+                    maxUses,
+                    true,
+                    villagerXp,
+                    priceMultiplier
+            );
+            recipe.setIngredients(ingredients);
+            templates.add(recipe);
+            indices.add(i);
+            // Identical trades in one shop are told apart by how many came before them.
+            List<ItemStack> items = new ArrayList<>(ingredients);
+            items.add(result);
+            items = List.copyOf(items);
+            keys.add(new TradeKey(items, occurrences.merge(items, 1, Integer::sum) - 1));
+        }
+        int[] tradeIndices = new int[indices.size()];
+        for (int i = 0; i < tradeIndices.length; i++) tradeIndices[i] = indices.get(i);
+        TradeKey[] tradeKeys = keys.toArray(new TradeKey[0]);
+
+        RotationSampler pool = null;
+        if (shop.getRotation() != null) {
+            double[] weights = new double[tradeIndices.length];
+            for (int i = 0; i < weights.length; i++) weights[i] = trades.get(tradeIndices[i]).getWeight();
+            pool = new RotationSampler(weights);
+        }
+        return new CompiledShop(shop, templates, tradeIndices, tradeKeys, pool);
+    }
+
+    static int maxUses(ShopDefinition shop) {
+        return shop.getMaxUses() > 0 ? shop.getMaxUses() : DEFAULT_MAX_USES;
+    }
+
+    ShopDefinition getShop() {
+        return shop;
+    }
+
+    int size() {
+        return templates.size();
+    }
+
+    /** Shop trade index of template {@code i}. */
+    int tradeIndex(int i) {
+        return tradeIndices[i];
+    }
+
+    /** Content-based key of template {@code i}, used to key stock counters. */
+    TradeKey tradeKey(int i) {
+        return tradeKeys[i];
+    }
+
+    /** Whether this shop still has a trade with the given key. */
+    boolean hasTradeKey(TradeKey key) {
+        return tradeKeySet.contains(key);
+    }
+
+    /**
+     * Templates to show for this draw, or null to show all (no rotation, or the rotation is
+     * at least as large as the pool). Draws are seeded from shop, rotation window and (for
+     * per-player rotations) the player, so the same inputs always give the same subset.
+     * Returns exactly {@code size} templates, or every template with a positive weight if there are fewer.
+     *
+     * @return sorted template indices
+     */
+    int[] rotate(String key, UUID playerId, long nowMillis) {
+        RotationSettings rotation = shop.getRotation();
+        if (rotation == null) return null;
+        if (rotation.getSize() >= templates.size() && pool.positive() == templates.size()) return null;
+
+        long seed = key.hashCode();
+        seed = seed * 0x9E3779B97F4A7C15L + rotation.windowOf(nowMillis);
+        if (rotation.isPerPlayer()) {
+            seed = seed * 0x9E3779B97F4A7C15L + playerId.getMostSignificantBits();
+            seed = seed * 0x9E3779B97F4A7C15L + playerId.getLeastSignificantBits();
+        }
+        return pool.sample(rotation.getSize(), new SplittableRandom(seed));
+    }
+
+    /**
+     * Recipe of template {@code i} for one player's menu, starting at {@code uses}: the shared
+     * template when {@code uses} is 0, otherwise a fresh copy. Callers must not modify the result.
+     */
+    MerchantRecipe instantiate(int i, int uses) {
+        MerchantRecipe t = templates.get(i);
+        if (uses == 0) return t;
+        MerchantRecipe recipe = new MerchantRecipe(
+                t.getResult().clone(),
+                uses,
+                t.getMaxUses(),
+                t.hasExperienceReward(),
+                t.getVillagerExperience(),
+                t.getPriceMultiplier()
+        );
+        List<ItemStack> ingredients = new ArrayList<>(2);
+        for (ItemStack ing : t.getIngredients()) ingredients.add(ing.clone());
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ivillager.shop;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted sampling without replacement over a shop's rotation pool. Draws come from an
+ * {@link AliasTable} and repeats are rejected, which is O(1) per draw while the picks hold little
+ * of the total weight. If a few heavy entries keep being redrawn, the remaining picks are made by
+ * a linear scan over the weights that are left, so a draw always returns exactly
+ * {@code min(k, positive())} entries. Both ways pick each entry with probability proportional to
+ * its weight among the entries not picked yet. Entries with weight 0 are never picked.
+ */
+final class RotationSampler {
+
+    /** Rejected repeats allowed per pick before falling back to the linear scan. */
+    private static final int ATTEMPTS_PER_PICK = 8;
+
+    private final double[] weights;
+    private final AliasTable table;
+    private final int positive;
+
+    /**
+     * @param weights non-negative weight of each entry
+     */
+    RotationSampler(double[] weights) {
+        this.weights = weights.clone();
+        int n = 0;
+        for (double w : weights) {
+            if (w > 0) n++;
+        }
+        this.positive = n;
+        this.table = n > 0 ? new AliasTable(weights) : null;
+    }
+
+    /** Number of entries that can be picked. */
+    int positive() {
+        return positive;
+    }
+
+    /**
+     * Pick {@code min(k, positive())} distinct entries. The same random state always gives the same picks.
+     *
+     * @return sorted entry indices
+     */
+    int[] sample(int k, SplittableRandom random) {
+        k = Math.min(k, positive);
+        int[] picks = new int[Math.max(0, k)];
+        if (k <= 0) return picks;
+        BitSet chosen = new BitSet(weights.length);
+        int n = 0;
+        for (int attempts = 0; n < k && attempts < k * ATTEMPTS_PER_PICK; attempts++) {
+            int i = table.sample(random);
+            if (!chosen.get(i)) {
+                chosen.set(i);
+                picks[n++] = i;
+            }
+        }
+        while (n < k) {
+            double left = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > 0 && !chosen.get(i)) left += weights[i];
+            }
+            double target = random.nextDouble() * left;
+            int pick = -1;
+            for (int i = 0; i < weights.length; i++) {
+                if (!(weights[i] > 0) || chosen.get(i)) continue;
+                pick = i;
+                target -= weights[i];
+                if (target < 0) break;
+            }
+            // pick is the last candidate if rounding left target at or just above 0.
+            chosen.set(pick);
+            picks[n++] = pick;
+        }
+        Arrays.sort(picks);
+        return picks;
+    }
+}
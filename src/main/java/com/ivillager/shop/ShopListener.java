@@ -0,0 +1,44 @@
+package com.ivillager.shop;
+
+import io.papermc.paper.event.player.PlayerPurchaseEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.MerchantInventory;
+
+/**
+ * Tracks trades completed in IVillager menus (for restock counters) and ends
+ * menu sessions when the menu is closed or the player leaves.
+ */
+public final class ShopListener implements Listener {
+
+    private final ShopManager shopManager;
+
+    public ShopListener(ShopManager shopManager) {
+        this.shopManager = shopManager;
+    }
+
+    // Paper fires PlayerPurchaseEvent (not PlayerTradeEvent) for merchants created via Server#createMerchant.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPurchase(PlayerPurchaseEvent event) {
+        Player player = event.getPlayer();
+        if (!shopManager.hasSession(player.getUniqueId())) return;
+        if (!(player.getOpenInventory().getTopInventory() instanceof MerchantInventory inv)) return;
+        shopManager.recordPurchase(player, inv.getSelectedRecipeIndex());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClose(InventoryCloseEvent event) {
+        if (event.getInventory() instanceof MerchantInventory) {
+            shopManager.closeSession(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        shopManager.closeSession(event.getPlayer().getUniqueId());
+    }
+}
@@ -1,63 +1,269 @@
 package com.ivillager.shop;
 
+import com.ivillager.analytics.ShopAnalytics;
+import com.ivillager.config.RestockPolicy;
 import com.ivillager.config.ShopDefinition;
 import com.ivillager.config.TradeDefinition;
+import com.ivillager.config.ValidationSummary;
+import com.ivillager.events.EventDispatcher;
+import com.ivillager.jfr.ShopOpenEvent;
+import com.ivillager.jfr.TradeEvent;
 import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantRecipe;
 import org.bukkit.inventory.MenuType;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Holds loaded shops and opens the vanilla villager trading UI for players.
+ * Shops live in immutable {@link ShopRegistry} generations behind one atomic reference:
+ * reads are lock-free and always see a whole generation, loads publish a new one, and
+ * recent generations are kept in memory so {@link #rollback()} can switch back instantly.
  * All Merchant/UI operations must run on the main server thread.
  */
 public final class ShopManager {
 
-    private final Map<String, ShopDefinition> shops = new ConcurrentHashMap<>();
-    private String defaultShopName;
+    /** Previous generations kept for rollback. */
+    private static final int HISTORY_SIZE = 5;
 
-    public void load(Map<String, ShopDefinition> newShops, String defaultShop) {
-        shops.clear();
+    private final AtomicReference<ShopRegistry> current = new AtomicReference<>(ShopRegistry.EMPTY);
+    private final Deque<ShopRegistry> history = new ArrayDeque<>();
+    private long nextGeneration = 1;
+    private final StockTracker stock = new StockTracker();
+    private final Map<UUID, OpenSession> sessions = new HashMap<>();
+    private final ShopAnalytics analytics;
+    private final EventDispatcher events;
+
+    public ShopManager(ShopAnalytics analytics, EventDispatcher events) {
+        this.analytics = analytics;
+        this.events = events;
+    }
+
+    /**
+     * Build and publish a new generation from freshly loaded shops. Only shops that were added,
+     * removed or changed are recompiled and reindexed. Call from main thread.
+     *
+     * @return the published generation
+     */
+    public ShopRegistry load(Map<String, ShopDefinition> newShops, String defaultShop, ValidationSummary summary) {
+        ShopRegistry previous = current.get();
+        Map<String, ShopDefinition> shops = new HashMap<>();
         if (newShops != null) {
             for (Map.Entry<String, ShopDefinition> e : newShops.entrySet()) {
                 shops.put(e.getKey().toLowerCase(Locale.ROOT), e.getValue());
             }
         }
-        defaultShopName = defaultShop != null ? defaultShop.trim() : null;
+        List<String> removed = new ArrayList<>();
+        for (String key : previous.getShops().keySet()) {
+            if (!shops.containsKey(key)) removed.add(key);
+        }
+        Map<String, ShopDefinition> changed = new HashMap<>();
+        for (Map.Entry<String, ShopDefinition> e : shops.entrySet()) {
+            if (!e.getValue().equals(previous.getShops().get(e.getKey()))) changed.put(e.getKey(), e.getValue());
+        }
+        List<String> names = new ArrayList<>(shops.keySet());
+        Collections.sort(names);
+
+        String defaultShopName = defaultShop != null ? defaultShop.trim() : null;
         if (defaultShopName != null && defaultShopName.isEmpty()) defaultShopName = null;
+        return publishNext(previous, shops, names, defaultShopName, summary, removed, changed);
+    }
+
+    /**
+     * Publish a new generation that differs from the current one in a single shop, e.g. a change
+     * received from another server. Nothing else is re-read or recompiled. Call from main thread.
+     *
+     * @param def new definition, or null to remove the shop
+     * @return the published generation, or the current one if nothing changed
+     */
+    public ShopRegistry update(String shopName, ShopDefinition def) {
+        ShopRegistry previous = current.get();
+        String key = shopName.toLowerCase(Locale.ROOT);
+        ShopDefinition old = previous.getShops().get(key);
+        if (def == null ? old == null : def.equals(old)) return previous;
+
+        Map<String, ShopDefinition> shops = new HashMap<>(previous.getShops());
+        List<String> names = new ArrayList<>(previous.getSortedNames());
+        int pos = Collections.binarySearch(names, key);
+        List<String> removed = new ArrayList<>(1);
+        Map<String, ShopDefinition> changed = new HashMap<>(2);
+        int trades = previous.getSummary().getTrades() - (old != null ? old.tradeCount() : 0);
+        if (def == null) {
+            shops.remove(key);
+            names.remove(pos);
+            removed.add(key);
+        } else {
+            shops.put(key, def);
+            if (pos < 0) names.add(-pos - 1, key);
+            changed.put(key, def);
+            trades += def.tradeCount();
+        }
+        ValidationSummary summary = new ValidationSummary(shops.size(), Math.max(0, trades),
+                previous.getSummary().getWarnings());
+        return publishNext(previous, shops, names, previous.getDefaultShopName(), summary, removed, changed);
+    }
+
+    private ShopRegistry publishNext(ShopRegistry previous, Map<String, ShopDefinition> shops, List<String> names,
+                                     String defaultShopName, ValidationSummary summary,
+                                     List<String> removed, Map<String, ShopDefinition> changed) {
+        // Unchanged shops keep their compiled templates (create/delete touch one shop).
+        Map<String, CompiledShop> compiled = new HashMap<>(previous.getCompiledShops());
+        for (String key : removed) compiled.remove(key);
+        Map<String, CompiledShop> recompiled = new HashMap<>(changed.size());
+        for (Map.Entry<String, ShopDefinition> e : changed.entrySet()) {
+            recompiled.put(e.getKey(), CompiledShop.compile(e.getValue()));
+        }
+        compiled.putAll(recompiled);
+        ShopRegistry next = new ShopRegistry(
+                nextGeneration++,
+                System.currentTimeMillis(),
+                summary != null ? summary : ValidationSummary.EMPTY,
+                Collections.unmodifiableMap(shops),
+                defaultShopName,
+                Collections.unmodifiableMap(compiled),
+                previous.getSearchIndex().update(removed, recompiled),
+                Collections.unmodifiableList(names)
+        );
+        // A reload that changed no shop would only push a duplicate rollback target.
+        if (previous != ShopRegistry.EMPTY && !(previous.getShops().equals(next.getShops())
+                && Objects.equals(previous.getDefaultShopName(), next.getDefaultShopName()))) {
+            history.push(previous);
+            while (history.size() > HISTORY_SIZE) history.removeLast();
+        }
+        publish(previous, next);
+        return next;
+    }
+
+    /**
+     * Switch back to the previous in-memory generation. No disk I/O: config.yml is left as is,
+     * so the next reload loads the file again. Call from main thread.
+     *
+     * @return the generation now active, or null if there is none to roll back to
+     */
+    public ShopRegistry rollback() {
+        ShopRegistry target = history.poll();
+        if (target == null) return null;
+        publish(current.get(), target);
+        return target;
+    }
+
+    private void publish(ShopRegistry from, ShopRegistry to) {
+        current.set(to);
+        // Counters are keyed by trade content, so only trades that are gone lose their counters.
+        for (Map.Entry<String, ShopDefinition> e : from.getShops().entrySet()) {
+            String key = e.getKey();
+            ShopDefinition now = to.getShops().get(key);
+            if (e.getValue().equals(now)) continue;
+            if (now == null || !Objects.equals(now.getRestock(), e.getValue().getRestock())) {
+                stock.clearShop(key);
+            } else {
+                stock.retainTrades(key, to.getCompiled(key)::hasTradeKey);
+            }
+            // Stats are keyed by trade index, which a changed trade list may have shifted.
+            if (!e.getValue().hasSameTrades(now)) analytics.forget(key);
+        }
+    }
+
+    /**
+     * Drop stock counters that have restocked and were not read since. Run periodically
+     * from the main thread; lazy restocks alone never free counters of players who leave.
+     *
+     * @return number of counters removed
+     */
+    public int sweepStock() {
+        ShopRegistry registry = current.get();
+        return stock.sweep(shop -> {
+            ShopDefinition def = registry.getShops().get(shop);
+            return def != null ? def.getRestock() : null;
+        }, System.currentTimeMillis());
+    }
+
+    /**
+     * The active generation. Lock-free; hold on to the returned object to read several values consistently.
+     */
+    public ShopRegistry getRegistry() {
+        return current.get();
+    }
+
+    /**
+     * Generations available to {@link #rollback()}, newest first.
+     */
+    public List<ShopRegistry> getHistory() {
+        return List.copyOf(history);
     }
 
     public boolean hasShop(String name) {
-        return name != null && shops.containsKey(name.toLowerCase(Locale.ROOT));
+        return name != null && current.get().getShops().containsKey(name.toLowerCase(Locale.ROOT));
     }
 
     public String getDefaultShopName() {
-        return defaultShopName;
+        return current.get().getDefaultShopName();
+    }
+
+    /**
+     * Index of items bought and sold across all loaded shops.
+     */
+    public ShopSearchIndex getSearchIndex() {
+        return current.get().getSearchIndex();
+    }
+
+    /**
+     * Loaded definition of a shop, or null if it does not exist.
+     */
+    public ShopDefinition getShop(String name) {
+        return name != null ? current.get().getShops().get(name.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * Short label for a trade, e.g. "#2 diamond x1", for stats and admin output.
+     */
+    public String describeTrade(String shopName, int tradeIndex) {
+        ShopDefinition shop = getShop(shopName);
+        if (shop == null || tradeIndex < 0 || tradeIndex >= shop.tradeCount()) return "#" + (tradeIndex + 1);
+        TradeDefinition t = shop.getTrade(tradeIndex);
+        ItemStack result = t.getResult();
+        if (result == null) return "#" + (tradeIndex + 1);
+        return "#" + (tradeIndex + 1) + " " + result.getType().getKey().getKey() + " x" + result.getAmount();
     }
 
     /**
      * Open the vanilla villager trading UI for the player with the given shop.
      * Must be called from the main server thread.
+     *
+     * @return false if the shop does not exist
      */
-    public void openShop(Player player, String shopName) {
-        if (player == null || shopName == null) return;
+    public boolean openShop(Player player, String shopName) {
+        if (player == null || shopName == null) return false;
         String key = shopName.toLowerCase(Locale.ROOT);
-        ShopDefinition shop = shops.get(key);
-        if (shop == null) return;
+        CompiledShop shop = current.get().getCompiled(key);
+        if (shop == null) return false;
+        ShopDefinition def = shop.getShop();
+        ShopOpenEvent event = new ShopOpenEvent();
+        event.begin();
 
         Merchant merchant = Bukkit.getServer().createMerchant();
-        String title = shop.getDisplayName() != null ? shop.getDisplayName() : "IVillager";
-        merchant.setRecipes(buildRecipes(shop));
+        String title = def.getDisplayName() != null ? def.getDisplayName() : "IVillager";
+        int[] templates = shop.rotate(key, player.getUniqueId(), System.currentTimeMillis());
+        if (templates == null) {
+            templates = new int[shop.size()];
+            for (int i = 0; i < templates.length; i++) templates[i] = i;
+        }
+        merchant.setRecipes(buildRecipes(shop, key, player.getUniqueId(), templates));
 
         // Paper 1.21.11: MenuType.MERCHANT.builder() with merchant and title.
         // Future 1.21.x/1.22: if API changes, adjust builder usage here.
@@ -66,44 +272,99 @@ public final class ShopManager {
                 .title(Component.text(title))
                 .build(player)
                 .open();
+        // After open(): closing a previous menu fires InventoryCloseEvent, which ends the old session.
+        sessions.put(player.getUniqueId(), new OpenSession(key, shop, templates));
+        events.shopOpened(player, key, templates.length);
+        if (event.shouldCommit()) {
+            event.shop = key;
+            event.recipeCount = templates.length;
+            event.commit();
+        }
+        return true;
     }
 
     /**
-     * Build MerchantRecipe list from shop definition.
-     * Vanilla MerchantRecipe supports at most 2 ingredients and 1 result per trade.
-     * We clone every ItemStack so recipes are independent and display correctly
-     * (shared references can cause trades to not show or get marked as used).
+     * Instantiate the player's MerchantRecipe list from the shop's compiled template
+     * (only the drawn subset for shops with a rotation).
+     * For shops with a restock policy, each recipe starts at the player's tracked uses.
+     *
+     * @param templates template indices to show, in menu order
      */
-    private List<MerchantRecipe> buildRecipes(ShopDefinition shop) {
-        List<MerchantRecipe> recipes = new ArrayList<>();
-        int maxUses = shop.getMaxUses() > 0 ? shop.getMaxUses() : 999999;
-        float priceMultiplier = (float) (shop.getPriceMultiplier() > 0 ? shop.getPriceMultiplier() : 0.05f);
-        int villagerXp = shop.getBuyXp();
-
-        for (TradeDefinition t : shop.getTrades()) {
-            if (t.getResult() == null || t.getIngredients().isEmpty()) continue;
-            List<org.bukkit.inventory.ItemStack> ingredients = new ArrayList<>();
-            for (org.bukkit.inventory.ItemStack ing : t.getIngredients()) {
-                if (ing != null && !ing.getType().isAir()) {
-                    ingredients.add(ing.clone());
-                }
-            }
-            if (ingredients.isEmpty()) continue;
-            MerchantRecipe recipe = new MerchantRecipe(
-                    t.getResult().clone(),
-                    0,
-                    maxUses,
-                    true,
-                    villagerXp,
-                    priceMultiplier
-            );
-            recipe.setIngredients(ingredients);
-            recipes.add(recipe);
+    private List<MerchantRecipe> buildRecipes(CompiledShop shop, String key, UUID playerId, int[] templates) {
+        RestockPolicy restock = shop.getShop().getRestock();
+        int maxUses = CompiledShop.maxUses(shop.getShop());
+        long now = System.currentTimeMillis();
+        List<MerchantRecipe> recipes = new ArrayList<>(templates.length);
+        for (int i : templates) {
+            int uses = restock != null ? Math.min(stock.getUses(playerId, key, shop.tradeKey(i), restock, now), maxUses) : 0;
+            recipes.add(shop.instantiate(i, uses));
         }
         return recipes;
     }
 
+    /**
+     * Record a completed trade from an IVillager menu. Called by ShopListener on the main thread.
+     *
+     * @param recipeIndex index of the selected recipe in the open merchant menu
+     */
+    void recordPurchase(Player player, int recipeIndex) {
+        OpenSession session = sessions.get(player.getUniqueId());
+        if (session == null || recipeIndex < 0 || recipeIndex >= session.templates.length) return;
+        int template = session.templates[recipeIndex];
+        int tradeIndex = session.compiled.tradeIndex(template);
+        TradeEvent event = new TradeEvent();
+        if (event.shouldCommit()) {
+            event.shop = session.shop;
+            event.tradeIndex = tradeIndex;
+            event.commit();
+        }
+        analytics.record(session.shop, player.getUniqueId(), tradeIndex);
+        // The definition the menu was built from, even if a reload published a new one since.
+        ShopDefinition shop = session.compiled.getShop();
+        events.tradeCompleted(player, session.shop, tradeIndex, shop.getTrade(tradeIndex));
+        if (shop.getRestock() == null) return;
+        int maxUses = CompiledShop.maxUses(shop);
+        if (stock.recordUse(player.getUniqueId(), session.shop, session.compiled.tradeKey(template),
+                shop.getRestock(), maxUses, System.currentTimeMillis())) {
+            events.stockDepleted(player, session.shop, tradeIndex);
+        }
+    }
+
+    /**
+     * Forget the player's open menu (closed or quit).
+     */
+    void closeSession(UUID playerId) {
+        sessions.remove(playerId);
+    }
+
+    boolean hasSession(UUID playerId) {
+        return sessions.containsKey(playerId);
+    }
+
+    /**
+     * The shop a player currently has open, the compiled generation the menu was built from,
+     * and which template each menu recipe maps to.
+     */
+    private static final class OpenSession {
+        final String shop;
+        final CompiledShop compiled;
+        final int[] templates;
+
+        OpenSession(String shop, CompiledShop compiled, int[] templates) {
+            this.shop = shop;
+            this.compiled = compiled;
+            this.templates = templates;
+        }
+    }
+
+    /**
+     * Lower-case shop names, sorted; rebuilt on load and used for listing and suggestions.
+     */
+    public List<String> getSortedShopNames() {
+        return current.get().getSortedNames();
+    }
+
     public Set<String> getShopNames() {
-        return Collections.unmodifiableSet(shops.keySet());
+        return current.get().getShops().keySet();
     }
 }
@@ -0,0 +1,79 @@
+package com.ivillager.shop;
+
+import com.ivillager.config.ShopDefinition;
+import com.ivillager.config.ValidationSummary;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable generation of loaded shops with everything derived from them (compiled
+ * recipe templates, search index, sorted names). ShopManager publishes generations through
+ * a single atomic reference, so a reader always sees one consistent generation without locking.
+ */
+public final class ShopRegistry {
+
+    static final ShopRegistry EMPTY = new ShopRegistry(0, 0L, ValidationSummary.EMPTY,
+            Map.of(), null, Map.of(), ShopSearchIndex.EMPTY, List.of());
+
+    private final long generation;
+    private final long loadedAt;
+    private final ValidationSummary summary;
+    private final Map<String, ShopDefinition> shops;
+    private final String defaultShopName;
+    private final Map<String, CompiledShop> compiled;
+    private final ShopSearchIndex searchIndex;
+    private final List<String> sortedNames;
+
+    ShopRegistry(long generation, long loadedAt, ValidationSummary summary, Map<String, ShopDefinition> shops,
+                 String defaultShopName, Map<String, CompiledShop> compiled, ShopSearchIndex searchIndex,
+                 List<String> sortedNames) {
+        this.generation = generation;
+        this.loadedAt = loadedAt;
+        this.summary = summary;
+        this.shops = shops;
+        this.defaultShopName = defaultShopName;
+        this.compiled = compiled;
+        this.searchIndex = searchIndex;
+        this.sortedNames = sortedNames;
+    }
+
+    /** Increasing generation number; 0 before the first load. */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** Wall-clock time (millis) this generation was loaded. */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public ValidationSummary getSummary() {
+        return summary;
+    }
+
+    /** Lower-case shop key -> definition (unmodifiable). */
+    public Map<String, ShopDefinition> getShops() {
+        return shops;
+    }
+
+    public String getDefaultShopName() {
+        return defaultShopName;
+    }
+
+    public ShopSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public List<String> getSortedNames() {
+        return sortedNames;
+    }
+
+    CompiledShop getCompiled(String key) {
+        return compiled.get(key);
+    }
+
+    Map<String, CompiledShop> getCompiledShops() {
+        return compiled;
+    }
+}
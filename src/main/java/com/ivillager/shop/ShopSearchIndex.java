@@ -0,0 +1,169 @@
+package com.ivillager.shop;
+
+import com.ivillager.config.TradeDefinition;
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.PotionContents;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from item term (material, potion type or enchantment key) to the shop trades
+ * that use it as a cost or as a result. Only trades that made it into the compiled shop are
+ * indexed, so search and its suggestions never list a trade the shop does not offer. Instances are immutable: {@link #update} returns a new
+ * index that shares every posting list it did not touch, so readers never see a half-applied change.
+ */
+public final class ShopSearchIndex {
+
+    public static final ShopSearchIndex EMPTY = new ShopSearchIndex(Map.of(), Map.of());
+
+    private final Map<String, List<Hit>> postings;
+    private final Map<String, Set<String>> termsByShop;
+    private final List<String> sortedTerms;
+
+    private ShopSearchIndex(Map<String, List<Hit>> postings, Map<String, Set<String>> termsByShop) {
+        this.postings = postings;
+        this.termsByShop = termsByShop;
+        List<String> terms = new ArrayList<>(postings.keySet());
+        Collections.sort(terms);
+        this.sortedTerms = Collections.unmodifiableList(terms);
+    }
+
+    /**
+     * Return a new index with the given shops removed and the given shops (re)indexed.
+     * Cost is proportional to the postings of the touched shops, not to the whole catalog.
+     *
+     * @param removed shop keys that no longer exist
+     * @param added shop key -> compiled shop for new or changed shops (old postings are replaced)
+     */
+    ShopSearchIndex update(Collection<String> removed, Map<String, CompiledShop> added) {
+        if ((removed == null || removed.isEmpty()) && (added == null || added.isEmpty())) return this;
+        Map<String, List<Hit>> newPostings = new HashMap<>(postings);
+        Map<String, Set<String>> newTermsByShop = new HashMap<>(termsByShop);
+
+        Set<String> dropped = new LinkedHashSet<>();
+        if (removed != null) dropped.addAll(removed);
+        if (added != null) dropped.addAll(added.keySet());
+        for (String shop : dropped) {
+            Set<String> terms = newTermsByShop.remove(shop);
+            if (terms == null) continue;
+            for (String term : terms) {
+                List<Hit> list = newPostings.get(term);
+                if (list == null) continue;
+                List<Hit> kept = new ArrayList<>(list.size());
+                for (Hit h : list) {
+                    if (!h.getShop().equals(shop)) kept.add(h);
+                }
+                if (kept.isEmpty()) {
+                    newPostings.remove(term);
+                } else {
+                    newPostings.put(term, Collections.unmodifiableList(kept));
+                }
+            }
+        }
+
+        if (added != null) {
+            Map<String, List<Hit>> additions = new HashMap<>();
+            for (Map.Entry<String, CompiledShop> e : added.entrySet()) {
+                String shop = e.getKey();
+                CompiledShop compiled = e.getValue();
+                Set<String> shopTerms = new LinkedHashSet<>();
+                List<TradeDefinition> trades = compiled.getShop().getTrades();
+                for (int i = 0; i < compiled.size(); i++) {
+                    int index = compiled.tradeIndex(i);
+                    TradeDefinition t = trades.get(index);
+                    for (ItemStack ing : t.getIngredients()) {
+                        collect(ing, new Hit(shop, index, false), shopTerms, additions);
+                    }
+                    collect(t.getResult(), new Hit(shop, index, true), shopTerms, additions);
+                }
+                newTermsByShop.put(shop, Collections.unmodifiableSet(shopTerms));
+            }
+            for (Map.Entry<String, List<Hit>> e : additions.entrySet()) {
+                List<Hit> existing = newPostings.get(e.getKey());
+                List<Hit> merged = new ArrayList<>((existing != null ? existing.size() : 0) + e.getValue().size());
+                if (existing != null) merged.addAll(existing);
+                merged.addAll(e.getValue());
+                newPostings.put(e.getKey(), Collections.unmodifiableList(merged));
+            }
+        }
+        return new ShopSearchIndex(newPostings, newTermsByShop);
+    }
+
+    /**
+     * Trades that use the given term as cost or result. O(results).
+     */
+    public List<Hit> search(String term) {
+        if (term == null) return List.of();
+        return postings.getOrDefault(normalize(term), List.of());
+    }
+
+    /**
+     * All indexed terms, sorted; used for tab completion.
+     */
+    public List<String> getTerms() {
+        return sortedTerms;
+    }
+
+    static String normalize(String term) {
+        String s = term.trim().toLowerCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        if (s.startsWith("minecraft:")) s = s.substring("minecraft:".length());
+        return s;
+    }
+
+    private static void collect(ItemStack stack, Hit hit, Set<String> shopTerms, Map<String, List<Hit>> additions) {
+        if (stack == null || stack.getType().isAir()) return;
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(stack.getType().getKey().getKey());
+        PotionContents potion = stack.getData(DataComponentTypes.POTION_CONTENTS);
+        if (potion != null) {
+            PotionType type = potion.potion();
+            if (type != null) terms.add(type.getKey().getKey());
+        }
+        for (Enchantment enchant : stack.getEnchantments().keySet()) {
+            terms.add(enchant.getKey().getKey());
+        }
+        for (String term : terms) {
+            additions.computeIfAbsent(term, k -> new ArrayList<>()).add(hit);
+            shopTerms.add(term);
+        }
+    }
+
+    /**
+     * A single posting: trade {@code tradeIndex} of {@code shop} uses the term as a cost or result.
+     */
+    public static final class Hit {
+        private final String shop;
+        private final int tradeIndex;
+        private final boolean result;
+
+        Hit(String shop, int tradeIndex, boolean result) {
+            this.shop = shop;
+            this.tradeIndex = tradeIndex;
+            this.result = result;
+        }
+
+        public String getShop() {
+            return shop;
+        }
+
+        public int getTradeIndex() {
+            return tradeIndex;
+        }
+
+        /** True if the shop sells the item (trade result); false if it takes it as a cost. */
+        public boolean isResult() {
+            return result;
+        }
+    }
+}
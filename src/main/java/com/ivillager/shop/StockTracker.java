@@ -0,0 +1,105 @@
+package com.ivillager.shop;
+
+import com.ivillager.config.RestockPolicy;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Per-player use counters for trades of shops that have a restock policy.
+ * Restocks are applied lazily: a counter is reset when it is read after its restock
+ * time, so each read or purchase is O(1) and nothing is scheduled per depleted trade.
+ * Counters that are never read again are dropped by {@link #sweep}, run from a periodic task.
+ * Counters are keyed by the trade's items (see {@link TradeKey}), not its
+ * position. They are kept in memory only and are not persisted: a restart restocks everything.
+ * Must be used from the main server thread.
+ */
+final class StockTracker {
+
+    private final Map<Key, Counter> counters = new HashMap<>();
+
+    /**
+     * Current uses of a trade for a player, after applying any due restock.
+     */
+    int getUses(UUID player, String shop, TradeKey trade, RestockPolicy policy, long now) {
+        Key key = new Key(player, shop, trade);
+        Counter c = counters.get(key);
+        if (c == null) return 0;
+        if (policy.isRestocked(c.stamp, now)) {
+            counters.remove(key);
+            return 0;
+        }
+        return c.uses;
+    }
+
+    /**
+     * Record one completed trade.
+     *
+     * @return true if this use depleted the trade
+     */
+    boolean recordUse(UUID player, String shop, TradeKey trade, RestockPolicy policy, int maxUses, long now) {
+        Key key = new Key(player, shop, trade);
+        Counter c = counters.get(key);
+        if (c == null || policy.isRestocked(c.stamp, now)) {
+            c = new Counter();
+            // Window-based policies stamp the window at first use; delay policies stamp at depletion.
+            c.stamp = policy.getKind() == RestockPolicy.Kind.AFTER_DEPLETION ? 0 : policy.windowOf(now);
+            counters.put(key, c);
+        }
+        c.uses++;
+        if (c.uses >= maxUses) {
+            if (policy.getKind() == RestockPolicy.Kind.AFTER_DEPLETION && c.stamp == 0) c.stamp = now;
+            return c.uses == maxUses;
+        }
+        return false;
+    }
+
+    /**
+     * Drop all counters of a shop (deleted, or its restock schedule changed).
+     */
+    void clearShop(String shop) {
+        counters.keySet().removeIf(k -> k.shop.equals(shop));
+    }
+
+    /**
+     * Drop the counters of a shop's trades that no longer exist; other trades keep their uses.
+     */
+    void retainTrades(String shop, Predicate<TradeKey> exists) {
+        counters.keySet().removeIf(k -> k.shop.equals(shop) && !exists.test(k.trade));
+    }
+
+    /**
+     * Drop counters that have restocked, or whose shop no longer has a restock policy.
+     *
+     * @param policyOf restock policy of a shop, or null
+     * @return number of counters removed
+     */
+    int sweep(Function<String, RestockPolicy> policyOf, long now) {
+        int removed = 0;
+        Iterator<Map.Entry<Key, Counter>> it = counters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Counter> e = it.next();
+            RestockPolicy policy = policyOf.apply(e.getKey().shop);
+            if (policy == null || policy.isRestocked(e.getValue().stamp, now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    private static final class Counter {
+        int uses;
+        long stamp;
+    }
+
+    private record Key(UUID player, String shop, TradeKey trade) {}
+}
@@ -0,0 +1,16 @@
+package com.ivillager.shop;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Identity of a trade within its shop for stock counters: the exact ingredient and result items
+ * (compared with {@link ItemStack#equals}, so amounts and meta count) and how many identical
+ * trades come before it. Weight and position are not part of it, so reordering trades or changing
+ * rotation weights keeps counters, and two different trades never share one.
+ *
+ * @param items      ingredients followed by the result; copies that are never modified
+ * @param occurrence number of earlier trades in the shop with the same items
+ */
+record TradeKey(List<ItemStack> items, int occurrence) {}
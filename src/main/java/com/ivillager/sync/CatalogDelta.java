@@ -0,0 +1,140 @@
+package com.ivillager.sync;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One change to the shop catalog: a shop created/changed (with the YAML body of its section)
+ * or deleted. Identified by the node that made it and that node's sequence number; the
+ * Lamport clock orders concurrent changes to the same shop on different nodes.
+ * On the wire the YAML is deflated, so a typical delta is a few hundred bytes.
+ */
+public final class CatalogDelta {
+
+    public enum Op { UPSERT, DELETE }
+
+    private final String origin;
+    private final long seq;
+    private final long clock;
+    private final Op op;
+    private final String shop;
+    private final String yaml;
+
+    public CatalogDelta(String origin, long seq, long clock, Op op, String shop, String yaml) {
+        this.origin = origin;
+        this.seq = seq;
+        this.clock = clock;
+        this.op = op;
+        this.shop = shop;
+        this.yaml = op == Op.UPSERT ? yaml : null;
+    }
+
+    /** Node that made the change. */
+    public String getOrigin() {
+        return origin;
+    }
+
+    /** Position in the origin's change sequence, starting at 1. */
+    public long getSeq() {
+        return seq;
+    }
+
+    public long getClock() {
+        return clock;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    /** Lower-case shop key. */
+    public String getShop() {
+        return shop;
+    }
+
+    /** YAML body of the shop section for UPSERT; null for DELETE. */
+    public String getYaml() {
+        return yaml;
+    }
+
+    /**
+     * Whether this change wins over another change to the same shop (higher clock, then higher origin).
+     */
+    public boolean isNewerThan(long otherClock, String otherOrigin) {
+        if (clock != otherClock) return clock > otherClock;
+        return origin.compareTo(otherOrigin) > 0;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(origin);
+        out.writeLong(seq);
+        out.writeLong(clock);
+        out.writeByte(op.ordinal());
+        out.writeUTF(shop);
+        if (op == Op.UPSERT) {
+            byte[] packed = deflate(yaml.getBytes(StandardCharsets.UTF_8));
+            out.writeInt(packed.length);
+            out.write(packed);
+        }
+    }
+
+    static CatalogDelta read(DataInput in) throws IOException {
+        String origin = in.readUTF();
+        long seq = in.readLong();
+        long clock = in.readLong();
+        int opIndex = in.readUnsignedByte();
+        if (opIndex >= Op.values().length) throw new IOException("Unknown delta op " + opIndex);
+        Op op = Op.values()[opIndex];
+        String shop = in.readUTF();
+        String yaml = null;
+        if (op == Op.UPSERT) {
+            int length = in.readInt();
+            if (length < 0 || length > SyncCodec.MAX_MESSAGE_BYTES) throw new IOException("Bad delta length " + length);
+            byte[] packed = new byte[length];
+            in.readFully(packed);
+            yaml = new String(inflate(packed), StandardCharsets.UTF_8);
+        }
+        return new CatalogDelta(origin, seq, clock, op, shop, yaml);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 3));
+        byte[] buf = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buf, 0, deflater.deflate(buf));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+        byte[] buf = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated delta");
+                }
+                out.write(buf, 0, n);
+                if (out.size() > SyncCodec.MAX_YAML_BYTES) throw new IOException("Delta too large");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt delta", e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+}
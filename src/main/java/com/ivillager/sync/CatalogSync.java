@@ -0,0 +1,446 @@
+package com.ivillager.sync;
+
+import com.ivillager.config.ConfigLoader;
+import com.ivillager.config.ShopDefinition;
+import com.ivillager.shop.ShopManager;
+import com.ivillager.shop.ShopRegistry;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replicates shop catalog changes between servers. Every local change to the registry
+ * (reload, create, delete) becomes one {@link CatalogDelta} per touched shop; received deltas
+ * are applied to the registry one shop at a time, without a reload, and written to config.yml
+ * in batches off the main thread. Every message is signed with the shared secret
+ * ({@link MessageSigner}); unsigned or tampered messages are dropped before they are decoded.
+ * Each node keeps a version vector of what it has applied and a bounded log of its own recent
+ * deltas. Vectors are exchanged periodically and whenever a gap is seen, and a node that sees
+ * another is missing some of its own deltas sends just those again, so each missed delta is
+ * resent once by its origin rather than by every node that has it. Concurrent edits of the same
+ * shop resolve to the change with the highest Lamport clock. Rollbacks stay local. All methods
+ * run on the main thread; only the config.yml writes run asynchronously.
+ */
+public final class CatalogSync {
+
+    /** Recent own deltas kept for catch-up. */
+    static final int LOG_SIZE = 1024;
+    private static final int MAX_PENDING_PER_ORIGIN = 1024;
+    private static final long VECTOR_PERIOD_TICKS = 30 * 20L;
+    private static final long CATCH_UP_INTERVAL_MILLIS = 5_000L;
+    private static final long REJECT_WARNING_INTERVAL_MILLIS = 60_000L;
+
+    private final Plugin plugin;
+    private final ConfigLoader configLoader;
+    private final ShopManager shopManager;
+    private final SyncTransport transport;
+    private final File stateFile;
+    private final String nodeId;
+    private final MessageSigner signer;
+
+    private final VersionVector vector = new VersionVector();
+    private final Deque<CatalogDelta> log = new ArrayDeque<>();
+    private final Map<String, TreeMap<Long, CatalogDelta>> pending = new HashMap<>();
+    /** Clock and origin of the last change applied per shop key, for last-writer-wins. */
+    private final Map<String, Stamp> stamps = new HashMap<>();
+    private final Set<String> warnedBehind = new HashSet<>();
+    /**
+     * Received changes applied to the registry but not yet written: shop key -> YAML body, or null
+     * to delete. Guarded by itself; shared with the async writer.
+     */
+    private final Map<String, String> unsaved = new LinkedHashMap<>();
+    /** Held while a batch is taken from {@link #unsaved} and written, so batches reach the file in order. */
+    private final Object writeLock = new Object();
+    /** Latest state.yml text not yet written, or null; shared with the async writer. */
+    private final AtomicReference<String> pendingState = new AtomicReference<>();
+    /** Held while a state snapshot is taken from {@link #pendingState} and written. */
+    private final Object stateWriteLock = new Object();
+    /**
+     * Whether sync/state.yml had no sequence for this node and we have not made a change since, so
+     * peers knowing later changes of ours is expected rather than a sign of a shared node id.
+     */
+    private boolean stateLost;
+    private boolean warnedDuplicateId;
+    private long seq;
+    private long clock;
+    private long lastCatchUpRequest;
+    private long lastResend;
+    private long resentAfter = Long.MAX_VALUE;
+    private long lastRejectWarning;
+    private long applied;
+    private long rejected;
+    private BukkitTask vectorTask;
+
+    /**
+     * @param nodeId configured node id, or empty to use (and keep) a generated one
+     * @param secret shared key that signs and checks every message
+     */
+    public CatalogSync(Plugin plugin, ConfigLoader configLoader, ShopManager shopManager,
+                       SyncTransport transport, String nodeId, String secret) {
+        this.plugin = plugin;
+        this.configLoader = configLoader;
+        this.shopManager = shopManager;
+        this.transport = transport;
+        this.signer = new MessageSigner(secret);
+        this.stateFile = new File(new File(plugin.getDataFolder(), "sync"), "state.yml");
+        YamlConfiguration state = YamlConfiguration.loadConfiguration(stateFile);
+        String id = nodeId != null && !nodeId.isEmpty() ? nodeId : state.getString("node_id", "");
+        // Used as a YAML key in state files; keep it to a safe character set.
+        id = id.replaceAll("[^A-Za-z0-9_-]", "_");
+        this.nodeId = id.isEmpty() ? UUID.randomUUID().toString().substring(0, 8) : id;
+        stateLost = !this.nodeId.equals(state.getString("node_id")) || !state.isSet("seq");
+        if (this.nodeId.equals(state.getString("node_id", this.nodeId))) {
+            seq = state.getLong("seq", 0);
+            clock = state.getLong("clock", 0);
+            ConfigurationSection vv = state.getConfigurationSection("vector");
+            if (vv != null) {
+                for (String origin : vv.getKeys(false)) vector.set(origin, vv.getLong(origin));
+            }
+            ConfigurationSection st = state.getConfigurationSection("stamps");
+            if (st != null) {
+                for (String shop : st.getKeys(false)) {
+                    stamps.put(shop, new Stamp(st.getLong(shop + ".clock"), st.getString(shop + ".origin", "")));
+                }
+            }
+        }
+        vector.set(this.nodeId, seq);
+    }
+
+    public void start() {
+        transport.start(this::receive);
+        vectorTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::sendVector, 40L, VECTOR_PERIOD_TICKS);
+        plugin.getLogger().info("Catalog sync enabled as node '" + nodeId + "' over " + transport.getName() + ".");
+    }
+
+    public void stop() {
+        if (vectorTask != null) vectorTask.cancel();
+        vectorTask = null;
+        transport.stop();
+        flushWrites();
+        // The last async state write may not have run; losing seq would reuse sequence numbers.
+        pendingState.set(stateText());
+        writeState();
+    }
+
+    /**
+     * Write received changes that are still waiting, on the calling thread. The async writer uses
+     * this too; call it on the main thread before anything reads or edits config.yml (reload,
+     * create, delete), so it does not miss them.
+     */
+    public void flushWrites() {
+        synchronized (writeLock) {
+            Map<String, String> batch;
+            synchronized (unsaved) {
+                if (unsaved.isEmpty()) return;
+                batch = new LinkedHashMap<>(unsaved);
+                unsaved.clear();
+            }
+            configLoader.writeShops(batch);
+        }
+    }
+
+    /**
+     * Broadcast the shops that differ between two generations produced by a local load.
+     */
+    public void publishLocal(ShopRegistry before, ShopRegistry after) {
+        List<String> deleted = new ArrayList<>();
+        for (String key : before.getShops().keySet()) {
+            if (!after.getShops().containsKey(key)) deleted.add(key);
+        }
+        List<String> upserted = new ArrayList<>();
+        for (Map.Entry<String, ShopDefinition> e : after.getShops().entrySet()) {
+            if (!e.getValue().equals(before.getShops().get(e.getKey()))) upserted.add(e.getValue().getName());
+        }
+        if (deleted.isEmpty() && upserted.isEmpty()) return;
+        Map<String, String> yaml = configLoader.exportShops(upserted);
+        for (String shop : upserted) {
+            String text = yaml.get(shop.toLowerCase(Locale.ROOT));
+            if (text != null) emit(CatalogDelta.Op.UPSERT, shop, text);
+        }
+        for (String shop : deleted) emit(CatalogDelta.Op.DELETE, shop, null);
+        saveState();
+    }
+
+    /**
+     * Number, log and send one local change. A change too large to send is refused before it takes
+     * a sequence number, so peers are not left waiting for a delta that can never arrive.
+     */
+    private void emit(CatalogDelta.Op op, String shop, String yaml) {
+        CatalogDelta delta = new CatalogDelta(nodeId, seq + 1, clock + 1, op, shop, yaml);
+        byte[] signed;
+        try {
+            signed = signer.sign(SyncCodec.encodeDelta(delta));
+        } catch (IOException e) {
+            plugin.getLogger().severe("[IVillager] Failed to encode sync delta for shop '" + shop + "': " + e.getMessage());
+            return;
+        }
+        int yamlBytes = yaml != null ? yaml.getBytes(StandardCharsets.UTF_8).length : 0;
+        if (signed.length > SyncCodec.MAX_MESSAGE_BYTES || yamlBytes > SyncCodec.MAX_YAML_BYTES) {
+            plugin.getLogger().severe("[IVillager] Shop '" + shop + "' is too large to sync (" + signed.length
+                    + " bytes compressed, limit " + SyncCodec.MAX_MESSAGE_BYTES + "); it was not sent."
+                    + " Copy it to config.yml on the other servers and reload them.");
+            return;
+        }
+        seq = delta.getSeq();
+        clock = delta.getClock();
+        stateLost = false;
+        vector.set(nodeId, seq);
+        stamps.put(shop.toLowerCase(Locale.ROOT), new Stamp(delta.getClock(), nodeId));
+        remember(delta);
+        transport.broadcast(signed);
+    }
+
+    private void receive(byte[] signed) {
+        byte[] message = signer.verify(signed);
+        if (message == null) {
+            rejected++;
+            long now = System.currentTimeMillis();
+            if (now - lastRejectWarning >= REJECT_WARNING_INTERVAL_MILLIS) {
+                lastRejectWarning = now;
+                plugin.getLogger().warning("[IVillager] Dropped " + rejected + " sync message(s) with a bad signature so far;"
+                        + " check that sync.secret is the same on every server.");
+            }
+            return;
+        }
+        Object decoded;
+        try {
+            decoded = SyncCodec.decode(message);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Ignoring malformed sync message: " + e.getMessage());
+            return;
+        }
+        if (decoded instanceof CatalogDelta delta) {
+            onDelta(delta);
+        } else if (decoded instanceof SyncCodec.VectorMessage msg) {
+            onVector(msg.sender(), msg.vector());
+        }
+    }
+
+    private void onDelta(CatalogDelta delta) {
+        String origin = delta.getOrigin();
+        if (origin.equals(nodeId)) return;
+        long have = vector.get(origin);
+        if (delta.getSeq() <= have) return;
+        if (delta.getSeq() > have + 1) {
+            // Gap: hold on to it and ask for what we missed.
+            TreeMap<Long, CatalogDelta> waiting = pending.computeIfAbsent(origin, k -> new TreeMap<>());
+            if (waiting.size() < MAX_PENDING_PER_ORIGIN) waiting.put(delta.getSeq(), delta);
+            requestCatchUp();
+            return;
+        }
+        apply(delta);
+        TreeMap<Long, CatalogDelta> waiting = pending.get(origin);
+        while (waiting != null && !waiting.isEmpty()) {
+            Map.Entry<Long, CatalogDelta> next = waiting.firstEntry();
+            if (next.getKey() > vector.get(origin) + 1) break;
+            waiting.pollFirstEntry();
+            if (next.getKey() == vector.get(origin) + 1) apply(next.getValue());
+        }
+        if (waiting != null && waiting.isEmpty()) pending.remove(origin);
+        saveState();
+    }
+
+    private void apply(CatalogDelta delta) {
+        clock = Math.max(clock, delta.getClock());
+        vector.set(delta.getOrigin(), delta.getSeq());
+        String key = delta.getShop().toLowerCase(Locale.ROOT);
+        Stamp last = stamps.get(key);
+        if (last != null && !delta.isNewerThan(last.clock, last.origin)) return;
+        stamps.put(key, new Stamp(delta.getClock(), delta.getOrigin()));
+        if (delta.getOp() == CatalogDelta.Op.DELETE) {
+            if (!shopManager.hasShop(key)) return;
+            save(delta.getShop(), null);
+            shopManager.update(key, null);
+        } else {
+            ShopDefinition def = configLoader.parseShopText(delta.getShop(), delta.getYaml());
+            if (def == null || def.equals(shopManager.getShop(key))) return;
+            save(delta.getShop(), delta.getYaml());
+            shopManager.update(key, def);
+        }
+        applied++;
+    }
+
+    /**
+     * Queue a shop write. Changes received before the next tick are written together by one async
+     * task; changes that arrive while it runs are written by the next one.
+     */
+    private void save(String shop, String yaml) {
+        boolean first;
+        synchronized (unsaved) {
+            first = unsaved.isEmpty();
+            unsaved.put(shop.toLowerCase(Locale.ROOT), yaml);
+        }
+        if (first) plugin.getServer().getScheduler().runTaskLaterAsynchronously(plugin, this::flushWrites, 1L);
+    }
+
+    private void onVector(String sender, VersionVector theirs) {
+        if (sender.equals(nodeId)) return;
+        long theirSeq = theirs.get(nodeId);
+        if (theirSeq > seq) {
+            // Our own changes they have seen but we forgot: continue after them, or peers would drop
+            // our next changes as already seen.
+            if (stateLost) {
+                plugin.getLogger().warning("[IVillager] Sync state was lost; continuing this node's changes after "
+                        + theirSeq + " as seen by '" + sender + "'.");
+            } else if (!warnedDuplicateId) {
+                warnedDuplicateId = true;
+                plugin.getLogger().warning("[IVillager] Sync node '" + sender + "' has seen change " + theirSeq
+                        + " from node '" + nodeId + "', but this server was at " + seq + "; continuing after "
+                        + theirSeq + ". If sync.node_id is the same on two servers, give each its own.");
+            }
+            seq = theirSeq;
+            vector.set(nodeId, seq);
+            saveState();
+        }
+        if (theirSeq < seq) resendOwn(sender, theirSeq);
+        if (theirs.isAheadOf(vector)) requestCatchUp();
+    }
+
+    /**
+     * Broadcast our own logged deltas after {@code after}. Every node hears the broadcast, so
+     * further requests for the same or later deltas within the catch-up interval are not resent.
+     */
+    private void resendOwn(String sender, long after) {
+        long first = log.isEmpty() ? seq + 1 : log.peekFirst().getSeq();
+        if (first > after + 1 && warnedBehind.add(sender)) {
+            plugin.getLogger().warning("[IVillager] Sync node '" + sender + "' missed changes older than the sync log;"
+                    + " copy config.yml to it and reload.");
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastResend < CATCH_UP_INTERVAL_MILLIS && after >= resentAfter) return;
+        lastResend = now;
+        resentAfter = after;
+        for (CatalogDelta d : log) {
+            if (d.getSeq() > after) send(d);
+        }
+    }
+
+    private void requestCatchUp() {
+        long now = System.currentTimeMillis();
+        if (now - lastCatchUpRequest < CATCH_UP_INTERVAL_MILLIS) return;
+        lastCatchUpRequest = now;
+        sendVector();
+    }
+
+    private void sendVector() {
+        try {
+            transport.broadcast(signer.sign(SyncCodec.encodeVector(nodeId, vector)));
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Failed to encode sync vector: " + e.getMessage());
+        }
+    }
+
+    private void send(CatalogDelta delta) {
+        try {
+            transport.broadcast(signer.sign(SyncCodec.encodeDelta(delta)));
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Failed to encode sync delta: " + e.getMessage());
+        }
+    }
+
+    private void remember(CatalogDelta delta) {
+        log.addLast(delta);
+        while (log.size() > LOG_SIZE) log.removeFirst();
+    }
+
+    /**
+     * Persist node id, sequence, clock, vector and per-shop stamps. Built on the main thread and
+     * written asynchronously; only the latest snapshot waiting is written.
+     */
+    private void saveState() {
+        if (pendingState.getAndSet(stateText()) == null) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::writeState);
+        }
+    }
+
+    private String stateText() {
+        YamlConfiguration state = new YamlConfiguration();
+        state.set("node_id", nodeId);
+        state.set("seq", seq);
+        state.set("clock", clock);
+        for (Map.Entry<String, Long> e : vector.asMap().entrySet()) state.set("vector." + e.getKey(), e.getValue());
+        for (Map.Entry<String, Stamp> e : stamps.entrySet()) {
+            state.set("stamps." + e.getKey() + ".clock", e.getValue().clock);
+            state.set("stamps." + e.getKey() + ".origin", e.getValue().origin);
+        }
+        return state.saveToString();
+    }
+
+    /**
+     * Write the waiting snapshot, if any, on the calling thread (temp file + move). Taking the
+     * snapshot and writing it happen under one lock, so a newer snapshot always lands last.
+     */
+    private void writeState() {
+        synchronized (stateWriteLock) {
+            String text = pendingState.getAndSet(null);
+            if (text == null) return;
+            Path tmp = null;
+            try {
+                Path dir = stateFile.getParentFile().toPath();
+                Files.createDirectories(dir);
+                tmp = Files.createTempFile(dir, "state.yml.", ".tmp");
+                Files.writeString(tmp, text, StandardCharsets.UTF_8);
+                Files.move(tmp, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("[IVillager] Failed to write sync state: " + e.getMessage());
+                if (tmp != null) {
+                    try {
+                        Files.deleteIfExists(tmp);
+                    } catch (IOException ignored) {}
+                }
+            }
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getTransportName() {
+        return transport.getName();
+    }
+
+    public VersionVector getVector() {
+        return vector;
+    }
+
+    /** Deltas received out of order and waiting for a gap to be filled. */
+    public int getPendingCount() {
+        int n = 0;
+        for (TreeMap<Long, CatalogDelta> waiting : pending.values()) n += waiting.size();
+        return n;
+    }
+
+    /** Messages dropped since startup because their signature did not match. */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /** Remote changes applied to this server's shops since startup. */
+    public long getAppliedCount() {
+        return applied;
+    }
+
+    private record Stamp(long clock, String origin) {}
+}
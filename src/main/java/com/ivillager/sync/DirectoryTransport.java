@@ -0,0 +1,119 @@
+package com.ivillager.sync;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in transport for local testing and single-host setups: every message is a file in a
+ * directory shared by all servers (e.g. several test servers on one machine). Each server polls
+ * the directory asynchronously once a second and delivers files it has not seen yet on the main
+ * thread. Files older than {@link #RETENTION_MILLIS} are deleted; nodes that were offline longer
+ * catch up through version vectors.
+ */
+public final class DirectoryTransport implements SyncTransport {
+
+    static final long RETENTION_MILLIS = 10 * 60_000L;
+    private static final String SUFFIX = ".msg";
+
+    private final Plugin plugin;
+    private final Path directory;
+    /** Distinguishes this server's files from others written in the same millisecond. */
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+    /** Names of files already delivered or written by us. */
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    private long counter;
+    private BukkitTask pollTask;
+
+    public DirectoryTransport(Plugin plugin, Path directory) {
+        this.plugin = plugin;
+        this.directory = directory;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        try {
+            Files.createDirectories(directory);
+            // Messages from before this start are handled by catch-up, not replayed from disk.
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) seen.add(file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Cannot use sync directory " + directory + ": " + e.getMessage());
+        }
+        pollTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> poll(receiver), 20L, 20L);
+    }
+
+    private void poll(Consumer<byte[]> receiver) {
+        List<Path> fresh = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        long expired = System.currentTimeMillis() - RETENTION_MILLIS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (Files.getLastModifiedTime(file).toMillis() < expired) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                present.add(name);
+                if (!seen.contains(name)) fresh.add(file);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Cannot read sync directory: " + e.getMessage());
+            return;
+        }
+        seen.retainAll(present);
+        if (fresh.isEmpty()) return;
+        // Names start with the write time, so sorting keeps each sender's messages in order.
+        Collections.sort(fresh);
+        List<byte[]> messages = new ArrayList<>(fresh.size());
+        for (Path file : fresh) {
+            try {
+                messages.add(Files.readAllBytes(file));
+                seen.add(file.getFileName().toString());
+            } catch (IOException e) {
+                // Deleted by another node's cleanup, or still being moved in; retried next poll.
+            }
+        }
+        plugin.getServer().getScheduler().runTask(plugin, () -> messages.forEach(receiver));
+    }
+
+    @Override
+    public void broadcast(byte[] message) {
+        String name = String.format("%013d-%s-%06d%s", System.currentTimeMillis(), instance, counter++, SUFFIX);
+        seen.add(name);
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                Path tmp = directory.resolve(name + ".tmp");
+                Files.write(tmp, message);
+                Files.move(tmp, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().warning("[IVillager] Failed to write sync message: " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        if (pollTask != null) pollTask.cancel();
+        pollTask = null;
+    }
+
+    @Override
+    public String getName() {
+        return "directory " + directory;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ivillager.sync;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Sends sync messages through the proxy with the BungeeCord "Forward" plugin message to all
+ * servers (supported by BungeeCord and Velocity). Plugin messages travel over a player's
+ * connection, so messages sent while nobody is online wait in a small queue; servers that are
+ * empty when a message goes out get it later through catch-up. Anyone who can get a message onto
+ * this channel can deliver one here, so {@link CatalogSync} drops messages without a valid signature.
+ */
+public final class PluginMessageTransport implements SyncTransport, PluginMessageListener {
+
+    private static final String CHANNEL = "BungeeCord";
+    private static final String SUBCHANNEL = "IVillagerSync";
+    private static final int MAX_PENDING = 256;
+
+    private final Plugin plugin;
+    private final Deque<byte[]> pending = new ArrayDeque<>();
+    private Consumer<byte[]> receiver;
+    private BukkitTask flushTask;
+
+    public PluginMessageTransport(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        plugin.getServer().getMessenger().registerOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().registerIncomingPluginChannel(plugin, CHANNEL, this);
+        flushTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::flush, 20L, 20L);
+    }
+
+    @Override
+    public void broadcast(byte[] message) {
+        if (message.length > SyncCodec.MAX_MESSAGE_BYTES) {
+            plugin.getLogger().warning("[IVillager] Sync message of " + message.length
+                    + " bytes is too large for plugin messaging; not sent.");
+            return;
+        }
+        pending.addLast(message);
+        while (pending.size() > MAX_PENDING) pending.removeFirst();
+        flush();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        Iterator<? extends Player> online = plugin.getServer().getOnlinePlayers().iterator();
+        if (!online.hasNext()) return;
+        Player carrier = online.next();
+        while (!pending.isEmpty()) {
+            carrier.sendPluginMessage(plugin, CHANNEL, wrap(pending.removeFirst()));
+        }
+    }
+
+    private static byte[] wrap(byte[] message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length + 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUBCHANNEL);
+            out.writeShort(message.length);
+            out.write(message);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void onPluginMessageReceived(String channel, Player player, byte[] data) {
+        if (!CHANNEL.equals(channel) || receiver == null) return;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (!SUBCHANNEL.equals(in.readUTF())) return;
+            byte[] message = new byte[in.readUnsignedShort()];
+            in.readFully(message);
+            receiver.accept(message);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[IVillager] Malformed sync plugin message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (flushTask != null) flushTask.cancel();
+        flushTask = null;
+        plugin.getServer().getMessenger().unregisterOutgoingPluginChannel(plugin, CHANNEL);
+        plugin.getServer().getMessenger().unregisterIncomingPluginChannel(plugin, CHANNEL, this);
+        pending.clear();
+    }
+
+    @Override
+    public String getName() {
+        return "plugin messaging";
+    }
+}
@@ -0,0 +1,55 @@
+package com.ivillager.sync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Wire format of sync messages: one kind byte, then a delta or the sender's version vector.
+ */
+final class SyncCodec {
+
+    static final byte DELTA = 1;
+    static final byte VECTOR = 2;
+    /** Largest message we send or accept; plugin messages through the proxy are capped near 32 KiB. */
+    static final int MAX_MESSAGE_BYTES = 32_000;
+    /** Largest inflated shop YAML accepted. */
+    static final int MAX_YAML_BYTES = 4 * 1024 * 1024;
+
+    private SyncCodec() {}
+
+    static byte[] encodeDelta(CatalogDelta delta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(DELTA);
+        delta.write(out);
+        return bytes.toByteArray();
+    }
+
+    static byte[] encodeVector(String sender, VersionVector vector) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VECTOR);
+        out.writeUTF(sender);
+        vector.write(out);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return a {@link CatalogDelta} or a {@link VectorMessage}
+     * @throws IOException if the message is malformed
+     */
+    static Object decode(byte[] message) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+        byte kind = in.readByte();
+        return switch (kind) {
+            case DELTA -> CatalogDelta.read(in);
+            case VECTOR -> new VectorMessage(in.readUTF(), VersionVector.read(in));
+            default -> throw new IOException("Unknown sync message kind " + kind);
+        };
+    }
+
+    record VectorMessage(String sender, VersionVector vector) {}
+}
@@ -0,0 +1,25 @@
+package com.ivillager.sync;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries sync messages between servers. Messages are opaque byte arrays; delivery may be
+ * lossy, duplicated or reordered, which version vectors make up for.
+ */
+public interface SyncTransport {
+
+    /**
+     * Start receiving. {@code receiver} must be called on the main server thread.
+     */
+    void start(Consumer<byte[]> receiver);
+
+    /**
+     * Send a message to all other servers. Called from the main thread; must not block on I/O.
+     */
+    void broadcast(byte[] message);
+
+    void stop();
+
+    /** Short name for status output. */
+    String getName();
+}
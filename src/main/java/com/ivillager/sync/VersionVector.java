@@ -0,0 +1,57 @@
+package com.ivillager.sync;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Highest contiguous sequence number applied per origin node. Comparing two vectors tells
+ * which deltas a node is missing, so only those are resent.
+ */
+public final class VersionVector {
+
+    private final Map<String, Long> seqs = new HashMap<>();
+
+    /** Highest contiguous sequence applied from {@code origin}; 0 if none. */
+    public long get(String origin) {
+        return seqs.getOrDefault(origin, 0L);
+    }
+
+    public void set(String origin, long seq) {
+        seqs.put(origin, seq);
+    }
+
+    /**
+     * Whether this vector has seen any sequence number that {@code other} has not.
+     */
+    public boolean isAheadOf(VersionVector other) {
+        for (Map.Entry<String, Long> e : seqs.entrySet()) {
+            if (e.getValue() > other.get(e.getKey())) return true;
+        }
+        return false;
+    }
+
+    public Map<String, Long> asMap() {
+        return Collections.unmodifiableMap(seqs);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeShort(seqs.size());
+        for (Map.Entry<String, Long> e : seqs.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue());
+        }
+    }
+
+    static VersionVector read(DataInput in) throws IOException {
+        VersionVector vv = new VersionVector();
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            vv.set(in.readUTF(), in.readLong());
+        }
+        return vv;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ivillager.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SketchesTest {
+
+    @Test
+    void hyperLogLogEstimatesWithinFewPercent() {
+        HyperLogLog hll = new HyperLogLog(11);
+        for (long i = 0; i < 50_000; i++) hll.add(Hashing.mix(i));
+        for (long i = 0; i < 50_000; i++) hll.add(Hashing.mix(i));
+        assertEquals(50_000, hll.estimate(), 50_000 * 0.06);
+    }
+
+    @Test
+    void hyperLogLogMergeEqualsUnion() {
+        HyperLogLog a = new HyperLogLog(11);
+        HyperLogLog b = new HyperLogLog(11);
+        for (long i = 0; i < 1_000; i++) a.add(Hashing.mix(i));
+        for (long i = 500; i < 1_500; i++) b.add(Hashing.mix(i));
+        a.merge(b);
+        assertEquals(1_500, a.estimate(), 1_500 * 0.06);
+    }
+
+    @Test
+    void countMinNeverUndercounts() {
+        CountMinSketch cms = new CountMinSketch(4, 64);
+        for (long key = 0; key < 200; key++) cms.add(key, key);
+        for (long key = 0; key < 200; key++) assertTrue(cms.estimate(key) >= key);
+    }
+
+    @Test
+    void shopStatsTracksTopTradesAcrossWindows() {
+        ShopStats window1 = new ShopStats();
+        ShopStats window2 = new ShopStats();
+        for (int i = 0; i < 100; i++) window1.record(Hashing.mix(i), 3);
+        for (int i = 0; i < 40; i++) window1.record(Hashing.mix(i), i % 20);
+        for (int i = 0; i < 150; i++) window2.record(Hashing.mix(i), 7);
+        window1.merge(window2);
+        long[][] top = window1.getTopTrades();
+        assertEquals(7, top[0][0]);
+        assertEquals(3, top[1][0]);
+        assertEquals(290, window1.getTotalTrades());
+    }
+}
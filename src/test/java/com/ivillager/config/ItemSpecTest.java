@@ -0,0 +1,54 @@
+package com.ivillager.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemSpecTest {
+
+    @Test
+    void splitsItemStrings() {
+        ItemSpec spec = ItemSpec.parse(" Splash Potion:3:Strong-Healing ");
+        assertEquals("Splash Potion", spec.getMaterial());
+        assertEquals("splash_potion", spec.getMaterialKey());
+        assertEquals(3, spec.getAmount());
+        assertEquals(ItemSpec.Amount.OK, spec.getAmountStatus());
+        assertEquals("strong_healing", spec.getPotionKey());
+        assertTrue(ItemSpec.takesPotion(spec.getMaterialKey()));
+
+        ItemSpec plain = ItemSpec.parse("diamond");
+        assertEquals(1, plain.getAmount());
+        assertNull(plain.getPotion());
+        assertNull(ItemSpec.parse("  "));
+    }
+
+    @Test
+    void badAmountsBecomeOneAndLargeOnesAreClampedToAStack() {
+        assertEquals(ItemSpec.Amount.INVALID, ItemSpec.parse("emerald:x").getAmountStatus());
+        ItemSpec zero = ItemSpec.parse("emerald:0");
+        assertEquals(ItemSpec.Amount.BELOW_ONE, zero.getAmountStatus());
+        assertEquals(1, zero.getAmount());
+        ItemSpec many = ItemSpec.parse("ender_pearl:40");
+        assertEquals(40, many.getAmount());
+        assertEquals(16, many.getAmount(16));
+    }
+
+    @Test
+    void splitsEnchantmentLists() {
+        List<ItemSpec.Enchant> list = ItemSpec.parseEnchantments("Fire Aspect:2, ,sharpness:999,unbreaking:x,mending");
+        assertEquals(4, list.size());
+        assertEquals("fire_aspect", list.get(0).key());
+        assertEquals(2, list.get(0).level());
+        assertTrue(list.get(1).clamped());
+        assertEquals(255, list.get(1).level());
+        assertTrue(list.get(2).invalid());
+        assertEquals(1, list.get(2).level());
+        assertFalse(list.get(3).invalid() || list.get(3).clamped());
+        assertEquals(1, list.get(3).level());
+    }
+}
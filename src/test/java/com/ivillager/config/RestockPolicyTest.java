@@ -0,0 +1,48 @@
+package com.ivillager.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestockPolicyTest {
+
+    @Test
+    void parsesNamedAndDelayPolicies() {
+        assertEquals(RestockPolicy.Kind.HOURLY, RestockPolicy.parse("hourly").getKind());
+        assertEquals(RestockPolicy.Kind.DAILY, RestockPolicy.parse("Daily").getKind());
+        RestockPolicy delay = RestockPolicy.parse("30m");
+        assertEquals(RestockPolicy.Kind.AFTER_DEPLETION, delay.getKind());
+        assertEquals(30 * 60_000L, delay.getDelayMillis());
+        assertEquals(2 * 3_600_000L, RestockPolicy.parse("2h").getDelayMillis());
+    }
+
+    @Test
+    void rejectsInvalidValues() {
+        assertNull(RestockPolicy.parse(null));
+        assertNull(RestockPolicy.parse(""));
+        assertNull(RestockPolicy.parse("weekly"));
+        assertNull(RestockPolicy.parse("0m"));
+        assertNull(RestockPolicy.parse("xm"));
+    }
+
+    @Test
+    void delayRestocksOnlyAfterDepletionPlusDelay() {
+        RestockPolicy policy = RestockPolicy.parse("10m");
+        assertFalse(policy.isRestocked(0, 1_000_000L));
+        long depletedAt = 1_000_000L;
+        assertFalse(policy.isRestocked(depletedAt, depletedAt + 599_999L));
+        assertTrue(policy.isRestocked(depletedAt, depletedAt + 600_000L));
+    }
+
+    @Test
+    void hourlyRestocksWhenWindowChanges() {
+        RestockPolicy policy = RestockPolicy.parse("hourly");
+        long now = 1_700_000_000_000L;
+        long window = policy.windowOf(now);
+        assertFalse(policy.isRestocked(window, now));
+        assertTrue(policy.isRestocked(window, now + 3_600_000L));
+    }
+}
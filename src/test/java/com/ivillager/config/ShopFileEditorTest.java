@@ -0,0 +1,105 @@
+package com.ivillager.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShopFileEditorTest {
+
+    private static final int SHOPS = 2_000;
+
+    @TempDir
+    Path dir;
+
+    private final ShopFileEditor editor = new ShopFileEditor();
+
+    @Test
+    void createThenDeleteRestoresLfFile() throws Exception {
+        roundTrip("\n");
+    }
+
+    @Test
+    void createThenDeleteRestoresCrlfFile() throws Exception {
+        roundTrip("\r\n");
+    }
+
+    @Test
+    void addsShopsMappingWithTheFileSeparator() throws Exception {
+        Path file = dir.resolve("config.yml");
+        Files.writeString(file, "# no shops yet\r\nsettings:\r\n  debug: false\r\n", StandardCharsets.UTF_8);
+        edit(file, "market", body("emerald", "diamond"));
+
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("# no shops yet\r\nsettings:\r\n  debug: false\r\nshops:\r\n  market:\r\n"), text);
+        assertOnlySeparator(text, "\r\n");
+        Map<?, ?> shops = (Map<?, ?>) load(text).get("shops");
+        assertEquals(body("emerald", "diamond"), shops.get("market"));
+    }
+
+    private void roundTrip(String eol) throws Exception {
+        Path file = dir.resolve("config.yml");
+        String original = largeConfig(eol);
+        Files.writeString(file, original, StandardCharsets.UTF_8);
+
+        edit(file, "New Shop", body("emerald:3", "diamond"));
+        String created = Files.readString(file, StandardCharsets.UTF_8);
+        assertOnlySeparator(created, eol);
+        Map<?, ?> shops = (Map<?, ?>) load(created).get("shops");
+        assertEquals(SHOPS + 1, shops.size());
+        assertEquals(body("emerald:3", "diamond"), shops.get("New Shop"));
+        assertTrue(created.contains(eol + "settings:" + eol + "  debug: false" + eol), "keys after shops are kept");
+
+        edit(file, "shop1000", null);
+        edit(file, "new shop", null);
+        String deleted = Files.readString(file, StandardCharsets.UTF_8);
+        assertOnlySeparator(deleted, eol);
+        assertFalse(((Map<?, ?>) load(deleted).get("shops")).containsKey("shop1000"));
+        assertEquals(original.replace(shop(1000, eol), ""), deleted);
+    }
+
+    private void edit(Path file, String shop, Map<String, Object> body) throws Exception {
+        ShopFileEditor.Layout layout = editor.scan(file);
+        assertTrue(layout.editable);
+        Map<String, Map<String, Object>> changes = new HashMap<>();
+        changes.put(shop, body);
+        editor.write(file, layout, changes);
+    }
+
+    private static String largeConfig(String eol) {
+        StringBuilder sb = new StringBuilder("# generated shops" + eol + "shops:" + eol);
+        for (int i = 0; i < SHOPS; i++) sb.append(shop(i, eol));
+        return sb.append("settings:").append(eol).append("  debug: false").append(eol).toString();
+    }
+
+    private static String shop(int i, String eol) {
+        return "  shop" + i + ":" + eol
+                + "    display_name: Shop " + i + " # comment" + eol
+                + "    trades:" + eol
+                + "    - item: emerald:" + (i % 64 + 1) + eol
+                + "      trade: diamond" + eol;
+    }
+
+    private static Map<String, Object> body(String item, String trade) {
+        return Map.of("trades", List.of(Map.of("item", item, "trade", trade)));
+    }
+
+    private static Map<?, ?> load(String text) {
+        return new Yaml().load(text);
+    }
+
+    private static void assertOnlySeparator(String text, String eol) {
+        String rest = text.replace(eol, "");
+        assertFalse(rest.indexOf('\r') >= 0 || rest.indexOf('\n') >= 0, "mixed line separators");
+    }
+}
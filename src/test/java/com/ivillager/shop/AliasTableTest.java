@@ -0,0 +1,36 @@
+package com.ivillager.shop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AliasTableTest {
+
+    @Test
+    void samplesProportionallyToWeight() {
+        AliasTable table = new AliasTable(new double[] {1, 0, 3});
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[3];
+        int draws = 100_000;
+        for (int i = 0; i < draws; i++) counts[table.sample(random)]++;
+        assertEquals(0, counts[1]);
+        assertEquals(0.25, counts[0] / (double) draws, 0.01);
+        assertEquals(0.75, counts[2] / (double) draws, 0.01);
+    }
+
+    @Test
+    void sameSeedGivesSameDraws() {
+        AliasTable table = new AliasTable(new double[] {5, 1, 1, 2});
+        SplittableRandom a = new SplittableRandom(7);
+        SplittableRandom b = new SplittableRandom(7);
+        for (int i = 0; i < 100; i++) assertEquals(table.sample(a), table.sample(b));
+    }
+
+    @Test
+    void rejectsAllZeroWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[] {0, 0}));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ivillager.shop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RotationSamplerTest {
+
+    @Test
+    void alwaysPicksRequestedCountWhenOneWeightDominates() {
+        RotationSampler sampler = new RotationSampler(new double[] {1e12, 1, 1, 1, 1});
+        for (long seed = 0; seed < 200; seed++) {
+            int[] picks = sampler.sample(4, new SplittableRandom(seed));
+            assertEquals(4, picks.length);
+            for (int i = 1; i < picks.length; i++) assertTrue(picks[i - 1] < picks[i]);
+        }
+    }
+
+    @Test
+    void neverPicksZeroWeights() {
+        RotationSampler sampler = new RotationSampler(new double[] {0, 2, 0, 1, 0});
+        assertEquals(2, sampler.positive());
+        for (long seed = 0; seed < 200; seed++) {
+            assertArrayEquals(new int[] {1, 3}, sampler.sample(3, new SplittableRandom(seed)));
+        }
+    }
+
+    @Test
+    void firstPickFollowsWeights() {
+        RotationSampler sampler = new RotationSampler(new double[] {1, 3});
+        int draws = 20_000;
+        int heavyOnly = 0;
+        for (long seed = 0; seed < draws; seed++) {
+            if (sampler.sample(1, new SplittableRandom(seed))[0] == 1) heavyOnly++;
+        }
+        assertEquals(0.75, heavyOnly / (double) draws, 0.02);
+    }
+
+    @Test
+    void sameSeedGivesSamePicks() {
+        RotationSampler sampler = new RotationSampler(new double[] {5, 1, 1, 2, 4, 3});
+        assertArrayEquals(sampler.sample(3, new SplittableRandom(9)), sampler.sample(3, new SplittableRandom(9)));
+    }
+
+    @Test
+    void emptyPoolPicksNothing() {
+        RotationSampler sampler = new RotationSampler(new double[] {0, 0});
+        assertEquals(0, sampler.sample(2, new SplittableRandom(1)).length);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ivillager.sync;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogDeltaTest {
+
+    @Test
+    void deltaRoundTripsThroughCodec() throws Exception {
+        String yaml = "display_name: Market\ntrades:\n- item: emerald:8\n  trade: diamond:1\n".repeat(20);
+        CatalogDelta delta = new CatalogDelta("lobby", 7, 42, CatalogDelta.Op.UPSERT, "market", yaml);
+        byte[] bytes = SyncCodec.encodeDelta(delta);
+        assertTrue(bytes.length < yaml.length());
+
+        CatalogDelta read = assertInstanceOf(CatalogDelta.class, SyncCodec.decode(bytes));
+        assertEquals("lobby", read.getOrigin());
+        assertEquals(7, read.getSeq());
+        assertEquals(42, read.getClock());
+        assertEquals(CatalogDelta.Op.UPSERT, read.getOp());
+        assertEquals("market", read.getShop());
+        assertEquals(yaml, read.getYaml());
+
+        CatalogDelta delete = assertInstanceOf(CatalogDelta.class, SyncCodec.decode(
+                SyncCodec.encodeDelta(new CatalogDelta("lobby", 8, 43, CatalogDelta.Op.DELETE, "market", "ignored"))));
+        assertNull(delete.getYaml());
+    }
+
+    @Test
+    void vectorRoundTripsAndComparesPerOrigin() throws Exception {
+        VersionVector a = new VersionVector();
+        a.set("lobby", 5);
+        a.set("survival", 2);
+        SyncCodec.VectorMessage msg = assertInstanceOf(SyncCodec.VectorMessage.class,
+                SyncCodec.decode(SyncCodec.encodeVector("lobby", a)));
+        assertEquals("lobby", msg.sender());
+        assertEquals(5, msg.vector().get("lobby"));
+        assertEquals(0, msg.vector().get("creative"));
+
+        VersionVector b = new VersionVector();
+        b.set("lobby", 5);
+        assertTrue(a.isAheadOf(b));
+        assertFalse(b.isAheadOf(a));
+    }
+
+    @Test
+    void higherClockThenOriginWins() {
+        CatalogDelta delta = new CatalogDelta("b", 1, 10, CatalogDelta.Op.DELETE, "shop", null);
+        assertTrue(delta.isNewerThan(9, "z"));
+        assertFalse(delta.isNewerThan(11, "a"));
+        assertTrue(delta.isNewerThan(10, "a"));
+        assertFalse(delta.isNewerThan(10, "c"));
+    }
+
+    @Test
+    void signedMessagesVerifyOnlyWithTheSameSecret() throws Exception {
+        byte[] message = SyncCodec.encodeDelta(new CatalogDelta("lobby", 1, 1, CatalogDelta.Op.DELETE, "market", null));
+        MessageSigner signer = new MessageSigner("correct horse battery staple");
+        byte[] signed = signer.sign(message);
+        assertEquals(message.length + MessageSigner.TAG_BYTES, signed.length);
+        assertArrayEquals(message, signer.verify(signed));
+
+        assertNull(new MessageSigner("another secret of some length").verify(signed));
+        assertNull(signer.verify(message));
+        signed[0] ^= 1;
+        assertNull(signer.verify(signed));
+        assertNull(signer.verify(new byte[3]));
+    }
+}
@@ -0,0 +1,90 @@
+package com.ivillager.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShopValidatorTest {
+
+    private final ShopValidator validator = new ShopValidator(new ItemRegistry(
+            Set.of("emerald", "diamond", "diamond_sword", "potion", "water"),
+            Set.of("water"),
+            Set.of("healing", "strong_healing"),
+            Set.of("sharpness", "unbreaking"),
+            Map.of("diamond_sword", 1, "potion", 1)));
+
+    @Test
+    void normalizesValidShop() {
+        ShopValidator.ShopResult r = validator.validate("Market", Map.of(
+                "display_name", "Market",
+                "restock", "daily",
+                "trades", List.of(
+                        Map.of("item", "Emerald:8", "trade", "Diamond_Sword",
+                                "enchantments", "Sharpness:3, unbreaking:3"),
+                        Map.of("item", "diamond", "trade", "potion:1:Strong-Healing"))));
+        assertTrue(r.problems().isEmpty(), r.problems().toString());
+        assertEquals(2, r.trades());
+        List<?> trades = (List<?>) r.normalized().get("trades");
+        Map<?, ?> first = (Map<?, ?>) trades.get(0);
+        assertEquals("emerald:8", first.get("item"));
+        assertEquals("diamond_sword:1", first.get("trade"));
+        assertEquals("sharpness:3,unbreaking:3", first.get("enchantments"));
+        assertEquals("potion:1:strong_healing", ((Map<?, ?>) trades.get(1)).get("trade"));
+    }
+
+    @Test
+    void reportsWhatTheServerWouldDrop() {
+        ShopValidator.ShopResult r = validator.validate("broken", Map.of(
+                "colour", "red",
+                "restock", "weekly",
+                "trades", List.of(
+                        Map.of("item", "emerld:8", "trade", "diamond"),
+                        Map.of("item", "emerald:x", "trade", "diamond", "enchantments", "sharpnes:2"))));
+        assertEquals(1, r.trades());
+        assertEquals(2, count(r, Problem.Severity.ERROR), r.problems().toString());
+        assertEquals(4, count(r, Problem.Severity.WARNING), r.problems().toString());
+    }
+
+    @Test
+    void clampsAmountsToOneStackLikeTheServer() {
+        ShopValidator.ShopResult r = validator.validate("stacks", Map.of(
+                "trades", List.of(Map.of("item", "emerald:80", "trade", "diamond_sword:3"))));
+        Map<?, ?> trade = (Map<?, ?>) ((List<?>) r.normalized().get("trades")).get(0);
+        assertEquals("emerald:64", trade.get("item"));
+        assertEquals("diamond_sword:1", trade.get("trade"));
+        assertEquals(2, count(r, Problem.Severity.WARNING), r.problems().toString());
+    }
+
+    @Test
+    void blocksThatAreNotItemsAreErrors() {
+        ShopValidator.ShopResult r = validator.validate("blocks", Map.of(
+                "trades", List.of(Map.of("item", "water:1", "trade", "diamond"))));
+        assertEquals(0, r.trades());
+        assertEquals(2, count(r, Problem.Severity.ERROR), r.problems().toString());
+    }
+
+    @Test
+    void writesOnlyTheResultTheServerUses() {
+        ShopValidator.ShopResult r = validator.validate("results", Map.of(
+                "trades", List.of(Map.of("item", "emerald", "trade", "diamond:40,emerald:2,diamond:40"))));
+        Map<?, ?> trade = (Map<?, ?>) ((List<?>) r.normalized().get("trades")).get(0);
+        assertEquals("diamond:64", trade.get("trade"));
+        assertEquals(1, count(r, Problem.Severity.WARNING), r.problems().toString());
+    }
+
+    @Test
+    void nonMappingShopIsAnError() {
+        ShopValidator.ShopResult r = validator.validate("odd", "not a shop");
+        assertEquals(null, r.normalized());
+        assertEquals(Problem.Severity.ERROR, r.problems().get(0).severity());
+    }
+
+    private static long count(ShopValidator.ShopResult r, Problem.Severity severity) {
+        return r.problems().stream().filter(p -> p.severity() == severity).count();
+    }
+}
@@ -0,0 +1,164 @@
+package com.ivillager.tools;
+
+import com.ivillager.config.ItemSpec;
+import org.bukkit.Material;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Names the offline compiler accepts for materials, potion types and enchantments, so configs
+ * can be checked without a running server. Materials come from the {@link Material} enum of the
+ * Paper API on the classpath (its names need no server); which of them are blocks only, potion
+ * types, enchantments and the stack sizes of items that do not stack to 64 come from lists
+ * bundled under /registry.
+ * Immutable and safe to share between threads.
+ */
+public final class ItemRegistry {
+
+    static final int DEFAULT_MAX_STACK_SIZE = 64;
+
+    private final Set<String> materials;
+    private final Set<String> nonItems;
+    private final Set<String> potionTypes;
+    private final Set<String> enchantments;
+    private final Map<String, Integer> maxStackSizes;
+
+    /**
+     * @param nonItems materials that are blocks only and cannot be used in a trade
+     */
+    public ItemRegistry(Set<String> materials, Set<String> nonItems, Set<String> potionTypes, Set<String> enchantments,
+                        Map<String, Integer> maxStackSizes) {
+        this.materials = Set.copyOf(materials);
+        this.nonItems = Set.copyOf(nonItems);
+        this.potionTypes = Set.copyOf(potionTypes);
+        this.enchantments = Set.copyOf(enchantments);
+        this.maxStackSizes = Map.copyOf(maxStackSizes);
+    }
+
+    /**
+     * The bundled registry, plus entries from materials.txt, potion_types.txt, enchantments.txt
+     * and max_stack_sizes.txt in {@code extraDir} if given (e.g. datapack enchantments).
+     */
+    public static ItemRegistry bundled(Path extraDir) throws IOException {
+        Set<String> materials = new HashSet<>();
+        for (Material m : Material.values()) {
+            if (!m.name().startsWith("LEGACY_")) materials.add(m.name().toLowerCase(Locale.ROOT));
+        }
+        Set<String> nonItems = new HashSet<>();
+        Set<String> potions = new HashSet<>();
+        Set<String> enchants = new HashSet<>();
+        try (InputStream in = ItemRegistry.class.getResourceAsStream("/registry/non_items.txt")) {
+            readList(in, nonItems);
+        }
+        try (InputStream in = ItemRegistry.class.getResourceAsStream("/registry/potion_types.txt")) {
+            readList(in, potions);
+        }
+        try (InputStream in = ItemRegistry.class.getResourceAsStream("/registry/enchantments.txt")) {
+            readList(in, enchants);
+        }
+        List<String> stackLines = new ArrayList<>();
+        try (InputStream in = ItemRegistry.class.getResourceAsStream("/registry/max_stack_sizes.txt")) {
+            readList(in, stackLines);
+        }
+        Map<String, Integer> stackSizes = new HashMap<>();
+        readStackSizes(stackLines, stackSizes);
+        if (extraDir != null) {
+            readFile(extraDir.resolve("materials.txt"), materials);
+            readFile(extraDir.resolve("potion_types.txt"), potions);
+            readFile(extraDir.resolve("enchantments.txt"), enchants);
+            stackLines.clear();
+            readFile(extraDir.resolve("max_stack_sizes.txt"), stackLines);
+            readStackSizes(stackLines, stackSizes);
+        }
+        return new ItemRegistry(materials, nonItems, potions, enchants, stackSizes);
+    }
+
+    /**
+     * Lines "name size" into {@code into}, replacing earlier entries.
+     */
+    private static void readStackSizes(List<String> lines, Map<String, Integer> into) throws IOException {
+        for (String line : lines) {
+            String[] parts = line.split("\\s+");
+            int size = -1;
+            if (parts.length == 2) {
+                try {
+                    size = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException ignored) {}
+            }
+            if (size < 1) throw new IOException("Invalid max stack size line '" + line + "' (use: name size)");
+            into.put(parts[0], size);
+        }
+    }
+
+    private static void readFile(Path file, Collection<String> into) throws IOException {
+        if (!Files.isRegularFile(file)) return;
+        try (InputStream in = Files.newInputStream(file)) {
+            readList(in, into);
+        }
+    }
+
+    private static void readList(InputStream in, Collection<String> into) throws IOException {
+        if (in == null) throw new IOException("Bundled registry list missing from the jar");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) into.add(line.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * Canonical material key for a config name, matched like {@code Material.matchMaterial}.
+     *
+     * @return e.g. "diamond_sword", or null if unknown
+     */
+    public String material(ItemSpec spec) {
+        String s = spec.getMaterialKey();
+        return materials.contains(s) ? s : null;
+    }
+
+    /**
+     * Whether a known material can be an item stack; blocks such as water or wall_torch cannot.
+     */
+    public boolean isItem(String material) {
+        return !nonItems.contains(material);
+    }
+
+    /**
+     * Largest stack of a material the server creates; item strings asking for more are clamped.
+     */
+    public int maxStackSize(String material) {
+        return maxStackSizes.getOrDefault(material, DEFAULT_MAX_STACK_SIZE);
+    }
+
+    /**
+     * @return canonical potion type key, or null if unknown
+     */
+    public String potionType(String name) {
+        String s = ItemSpec.potionKey(name);
+        return potionTypes.contains(s) ? s : null;
+    }
+
+    /**
+     * @return canonical enchantment key, or null if unknown
+     */
+    public String enchantment(ItemSpec.Enchant enchant) {
+        String s = enchant.key();
+        return enchantments.contains(s) ? s : null;
+    }
+}
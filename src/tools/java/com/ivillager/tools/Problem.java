@@ -0,0 +1,14 @@
+package com.ivillager.tools;
+
+/**
+ * One finding of the config compiler.
+ *
+ * @param severity ERROR when the server would drop part of the config (an item, trade or shop),
+ *                 WARNING when it would ignore a value or fall back to a default
+ * @param shop     shop id, or empty for top-level keys
+ * @param path     location inside the shop, e.g. "trades[2].item"
+ */
+public record Problem(Severity severity, String shop, String path, String message) {
+
+    public enum Severity { ERROR, WARNING }
+}
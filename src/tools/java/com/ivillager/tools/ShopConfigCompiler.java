@@ -0,0 +1,262 @@
+package com.ivillager.tools;
+
+import com.ivillager.config.ConfigKeys;
+import com.ivillager.config.StreamingShopReader;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+/**
+ * Offline shop config compiler: checks config.yml (and optional per-shop files) without a server,
+ * so CI can reject broken configs before deployment. Run with the Gradle task
+ * {@code validateShops} or directly:
+ * <pre>
+ * ShopConfigCompiler &lt;config.yml&gt; [--shops-dir DIR] [--registry DIR] [--report report.json]
+ *                    [--output compiled.yml] [--strict]
+ * </pre>
+ * Shops are validated in parallel on a fork-join pool. The report lists every problem as JSON;
+ * {@code --output} writes a normalized config (canonical item strings, invalid trades removed,
+ * per-shop files merged) that the plugin loads as its config.yml.
+ * Exit status: 0 = ok, 1 = errors (or warnings with --strict), 2 = bad arguments or unreadable input.
+ */
+public final class ShopConfigCompiler {
+
+    /** Shops per fork-join leaf task. */
+    private static final int SHOPS_PER_TASK = 16;
+
+    private ShopConfigCompiler() {}
+
+    public static void main(String[] args) {
+        Path config = null;
+        Path shopsDir = null;
+        Path registryDir = null;
+        Path report = null;
+        Path output = null;
+        boolean strict = false;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--shops-dir" -> shopsDir = Path.of(value(args, ++i, a));
+                case "--registry" -> registryDir = Path.of(value(args, ++i, a));
+                case "--report" -> report = Path.of(value(args, ++i, a));
+                case "--output" -> output = Path.of(value(args, ++i, a));
+                case "--strict" -> strict = true;
+                default -> {
+                    if (a.startsWith("--") || config != null) usage("Unexpected argument: " + a);
+                    config = Path.of(a);
+                }
+            }
+        }
+        if (config == null) usage("Missing config.yml path");
+        try {
+            System.exit(run(config, shopsDir, registryDir, report, output, strict));
+        } catch (IOException | YAMLException e) {
+            System.err.println("Cannot read input: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) usage(option + " needs a value");
+        return args[i];
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: ShopConfigCompiler <config.yml> [--shops-dir DIR] [--registry DIR]"
+                + " [--report report.json] [--output compiled.yml] [--strict]");
+        System.exit(2);
+    }
+
+    static int run(Path config, Path shopsDir, Path registryDir, Path report, Path output, boolean strict) throws IOException {
+        long start = System.nanoTime();
+        ItemRegistry registry = ItemRegistry.bundled(registryDir);
+        List<Problem> topProblems = new ArrayList<>();
+
+        List<String> ids = new ArrayList<>();
+        List<Object> bodies = new ArrayList<>();
+        Map<String, Object> top;
+        try (Reader reader = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+            top = new StreamingShopReader(Logger.getLogger("IVillager")).read(reader, (id, body) -> {
+                ids.add(id);
+                bodies.add(body);
+            });
+        }
+        for (String key : top.keySet()) {
+            if (!ConfigKeys.TOP.contains(key)) {
+                topProblems.add(new Problem(Problem.Severity.WARNING, "", key, "unknown top-level config key"));
+            }
+        }
+        if (shopsDir != null) readShopFiles(shopsDir, ids, bodies);
+
+        Set<String> seen = new HashSet<>();
+        for (String id : ids) {
+            if (!seen.add(id.toLowerCase(Locale.ROOT))) {
+                topProblems.add(new Problem(Problem.Severity.ERROR, id, "", "shop is defined more than once (names are case-insensitive)"));
+            }
+        }
+        Object defaultShop = top.get("default_shop");
+        if (defaultShop != null && !String.valueOf(defaultShop).isBlank()
+                && !seen.contains(String.valueOf(defaultShop).trim().toLowerCase(Locale.ROOT))) {
+            topProblems.add(new Problem(Problem.Severity.WARNING, "", "default_shop", "shop '" + defaultShop + "' does not exist"));
+        }
+
+        ShopValidator validator = new ShopValidator(registry);
+        List<ShopValidator.ShopResult> results = ForkJoinPool.commonPool()
+                .invoke(new ValidateTask(validator, ids, bodies, 0, ids.size()));
+
+        List<Problem> problems = new ArrayList<>(topProblems);
+        int trades = 0;
+        for (ShopValidator.ShopResult r : results) {
+            problems.addAll(r.problems());
+            trades += r.trades();
+        }
+        int errors = 0;
+        for (Problem p : problems) {
+            if (p.severity() == Problem.Severity.ERROR) errors++;
+            System.out.println(p.severity().name().toLowerCase(Locale.ROOT) + ": "
+                    + (p.shop().isEmpty() ? "" : p.shop() + ": ") + (p.path().isEmpty() ? "" : p.path() + ": ") + p.message());
+        }
+        int warnings = problems.size() - errors;
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        System.out.println(results.size() + " shops, " + trades + " trades, " + errors + " errors, "
+                + warnings + " warnings (" + millis + " ms)");
+
+        if (report != null) writeReport(report, config, results.size(), trades, errors, warnings, problems);
+        if (output != null) writeArtifact(output, top, results);
+        return errors > 0 || (strict && warnings > 0) ? 1 : 0;
+    }
+
+    /**
+     * Each *.yml file in {@code dir} is one shop; its name without extension is the shop id.
+     */
+    private static void readShopFiles(Path dir, List<String> ids, List<Object> bodies) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{yml,yaml}")) {
+            for (Path file : stream) files.add(file);
+        }
+        files.sort(null);
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                ids.add(name.substring(0, name.lastIndexOf('.')));
+                bodies.add(yaml.load(reader));
+            }
+        }
+    }
+
+    private static final class ValidateTask extends RecursiveTask<List<ShopValidator.ShopResult>> {
+
+        private final ShopValidator validator;
+        private final List<String> ids;
+        private final List<Object> bodies;
+        private final int from;
+        private final int to;
+
+        ValidateTask(ShopValidator validator, List<String> ids, List<Object> bodies, int from, int to) {
+            this.validator = validator;
+            this.ids = ids;
+            this.bodies = bodies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ShopValidator.ShopResult> compute() {
+            if (to - from <= SHOPS_PER_TASK) {
+                List<ShopValidator.ShopResult> out = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) out.add(validator.validate(ids.get(i), bodies.get(i)));
+                return out;
+            }
+            int mid = (from + to) >>> 1;
+            ValidateTask left = new ValidateTask(validator, ids, bodies, from, mid);
+            left.fork();
+            List<ShopValidator.ShopResult> right = new ValidateTask(validator, ids, bodies, mid, to).compute();
+            List<ShopValidator.ShopResult> out = new ArrayList<>(left.join());
+            out.addAll(right);
+            return out;
+        }
+    }
+
+    private static void writeReport(Path report, Path config, int shops, int trades, int errors, int warnings,
+                                    List<Problem> problems) throws IOException {
+        StringBuilder json = new StringBuilder(256 + problems.size() * 96);
+        json.append("{\n  \"config\": ").append(quote(config.toString()))
+                .append(",\n  \"shops\": ").append(shops)
+                .append(",\n  \"trades\": ").append(trades)
+                .append(",\n  \"errors\": ").append(errors)
+                .append(",\n  \"warnings\": ").append(warnings)
+                .append(",\n  \"problems\": [");
+        for (int i = 0; i < problems.size(); i++) {
+            Problem p = problems.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"severity\": ").append(quote(p.severity().name().toLowerCase(Locale.ROOT)))
+                    .append(", \"shop\": ").append(quote(p.shop()))
+                    .append(", \"path\": ").append(quote(p.path()))
+                    .append(", \"message\": ").append(quote(p.message())).append('}');
+        }
+        json.append(problems.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        Files.writeString(report, json.toString(), StandardCharsets.UTF_8);
+    }
+
+    static String quote(String s) {
+        StringBuilder out = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * Write the normalized config: top-level settings as read, then every shop that loads.
+     */
+    private static void writeArtifact(Path output, Map<String, Object> top,
+                                      List<ShopValidator.ShopResult> results) throws IOException {
+        Map<String, Object> doc = new LinkedHashMap<>(top);
+        Map<String, Object> shops = new LinkedHashMap<>();
+        for (ShopValidator.ShopResult r : results) {
+            if (r.normalized() != null) shops.putIfAbsent(r.shop(), r.normalized());
+        }
+        doc.put("shops", shops);
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setWidth(120);
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("# Generated by ShopConfigCompiler; edit the source config instead.\n");
+            new Yaml(options).dump(doc, writer);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.ivillager.tools;
+
+import com.ivillager.config.ConfigKeys;
+import com.ivillager.config.ItemSpec;
+import com.ivillager.config.RestockPolicy;
+import com.ivillager.config.RotationSettings;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks one shop the way ConfigLoader and ItemParser would load it, without Bukkit, and builds
+ * its normalized form (canonical item strings, invalid trades removed). Item strings are split by
+ * {@link ItemSpec}, as in ItemParser. Stateless apart from the immutable registry, so shops can be
+ * validated in parallel.
+ */
+final class ShopValidator {
+
+    private static final List<String> INT_KEYS = List.of("level", "max_uses", "experience", "buy_xp");
+
+    private final ItemRegistry registry;
+
+    ShopValidator(ItemRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param normalized shop body with only valid trades and canonical item strings, or null if the shop is not a mapping
+     * @param trades     number of trades the server would load
+     */
+    record ShopResult(String shop, List<Problem> problems, Map<String, Object> normalized, int trades) {}
+
+    ShopResult validate(String shopId, Object value) {
+        List<Problem> problems = new ArrayList<>();
+        if (!(value instanceof Map<?, ?> shop)) {
+            problems.add(error(shopId, "", "shop is not a mapping; it will not be loaded"));
+            return new ShopResult(shopId, problems, null, 0);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : shop.entrySet()) {
+            String key = String.valueOf(e.getKey());
+            if (!ConfigKeys.SHOP.contains(key)) {
+                problems.add(warning(shopId, key, "unknown shop key"));
+            } else if (!"trades".equals(key) && !"rotation".equals(key)) {
+                out.put(key, e.getValue());
+            }
+        }
+        for (String key : INT_KEYS) {
+            Object v = shop.get(key);
+            if (v != null && !(v instanceof Number)) {
+                problems.add(warning(shopId, key, "must be a number; the default is used"));
+                out.remove(key);
+            }
+        }
+        Object multiplier = shop.get("price_multiplier");
+        if (multiplier != null && !(multiplier instanceof Number)) {
+            problems.add(warning(shopId, "price_multiplier", "must be a number; the default is used"));
+            out.remove("price_multiplier");
+        }
+        Object restock = shop.get("restock");
+        if (restock != null && !String.valueOf(restock).isBlank() && RestockPolicy.parse(String.valueOf(restock)) == null) {
+            problems.add(warning(shopId, "restock", "invalid value '" + restock + "' (use hourly, daily or e.g. 30m, 6h, 1d); no restock"));
+            out.remove("restock");
+        }
+        Map<String, Object> rotation = validateRotation(shopId, shop.get("rotation"), problems);
+        if (rotation != null) out.put("rotation", rotation);
+
+        List<Object> trades = new ArrayList<>();
+        Object tradesObj = shop.get("trades");
+        if (tradesObj instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                Map<String, Object> trade = validateTrade(shopId, "trades[" + i + "]", list.get(i), problems);
+                if (trade != null) trades.add(trade);
+            }
+        } else if (tradesObj != null) {
+            problems.add(error(shopId, "trades", "must be a list; the shop has no trades"));
+        }
+        if (trades.isEmpty()) problems.add(warning(shopId, "trades", "shop has no valid trades"));
+        out.put("trades", trades);
+        return new ShopResult(shopId, problems, out, trades.size());
+    }
+
+    private Map<String, Object> validateRotation(String shopId, Object value, List<Problem> problems) {
+        if (value == null) return null;
+        if (!(value instanceof Map<?, ?> rot)) {
+            problems.add(warning(shopId, "rotation", "must be a section; ignored"));
+            return null;
+        }
+        for (Object key : rot.keySet()) {
+            if (!ConfigKeys.ROTATION.contains(String.valueOf(key))) {
+                problems.add(warning(shopId, "rotation." + key, "unknown rotation key"));
+            }
+        }
+        Object size = rot.get("size");
+        if (!(size instanceof Number n) || n.intValue() < 1) {
+            problems.add(warning(shopId, "rotation.size", "needs a number >= 1; all trades are shown"));
+            return null;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", n.intValue());
+        Object period = rot.get("period");
+        if (period != null && RotationSettings.parsePeriod(String.valueOf(period)) < 0) {
+            problems.add(warning(shopId, "rotation.period", "invalid value '" + period + "'; daily is used"));
+            period = null;
+        }
+        out.put("period", period != null ? String.valueOf(period) : "daily");
+        Object perPlayer = rot.get("per_player");
+        if (perPlayer != null && !(perPlayer instanceof Boolean)) {
+            problems.add(warning(shopId, "rotation.per_player", "must be true or false; false is used"));
+            perPlayer = null;
+        }
+        out.put("per_player", perPlayer != null ? perPlayer : Boolean.FALSE);
+        return out;
+    }
+
+    private Map<String, Object> validateTrade(String shopId, String path, Object value, List<Problem> problems) {
+        if (!(value instanceof Map<?, ?> trade)) {
+            problems.add(error(shopId, path, "trade is not a mapping; skipped"));
+            return null;
+        }
+        for (Object key : trade.keySet()) {
+            if (!ConfigKeys.TRADE.contains(String.valueOf(key))) {
+                problems.add(warning(shopId, path + "." + key, "unknown trade key"));
+            }
+        }
+        List<String> ingredients = new ArrayList<>();
+        Object item = trade.get("item");
+        if (item instanceof String s) {
+            addItem(shopId, path + ".item", s, ingredients, problems);
+        } else if (item instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) instanceof String s) addItem(shopId, path + ".item[" + i + "]", s, ingredients, problems);
+            }
+        }
+        if (ingredients.isEmpty()) {
+            problems.add(error(shopId, path, "no valid item(s); trade skipped"));
+            return null;
+        }
+        if (ingredients.size() > 2) {
+            problems.add(warning(shopId, path + ".item", "more than 2 ingredients; only the first two are used"));
+            ingredients = ingredients.subList(0, 2);
+        }
+
+        List<String> results = new ArrayList<>();
+        Object result = trade.get("trade");
+        if (result instanceof String s) {
+            String[] parts = s.split(",");
+            for (int i = 0; i < parts.length; i++) {
+                addItem(shopId, path + ".trade" + (parts.length > 1 ? "[" + i + "]" : ""), parts[i], results, problems);
+            }
+        } else if (result instanceof List<?> list) {
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) instanceof String s) addItem(shopId, path + ".trade[" + i + "]", s, results, problems);
+            }
+        }
+        if (results.isEmpty()) {
+            problems.add(error(shopId, path, "no valid result; trade skipped"));
+            return null;
+        }
+        // One result per trade, as ItemParser.singleResult: the first, plus the amounts of later
+        // results of the same material, up to one stack.
+        String[] first = results.get(0).split(":", 3);
+        int total = Integer.parseInt(first[1]);
+        for (int i = 1; i < results.size(); i++) {
+            String[] next = results.get(i).split(":", 3);
+            if (next[0].equals(first[0])) {
+                total = Math.min(total + Integer.parseInt(next[1]), registry.maxStackSize(first[0]));
+            } else {
+                problems.add(warning(shopId, path + ".trade", "a trade has one result item; '" + results.get(i) + "' is ignored"));
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("item", ingredients.size() == 1 ? ingredients.get(0) : List.copyOf(ingredients));
+        out.put("trade", first[0] + ":" + total + (first.length > 2 ? ":" + first[2] : ""));
+        Object enchantments = trade.get("enchantments");
+        if (enchantments instanceof String s && !s.isBlank()) {
+            String normalized = validateEnchantments(shopId, path + ".enchantments", s, problems);
+            if (!normalized.isEmpty()) out.put("enchantments", normalized);
+        } else if (enchantments != null && !(enchantments instanceof String)) {
+            problems.add(warning(shopId, path + ".enchantments", "must be a string like sharpness:3,unbreaking:3; ignored"));
+        }
+        Object weight = trade.get("weight");
+        if (weight instanceof Number n) {
+            double w = n.doubleValue();
+            if (w < 0 || Double.isNaN(w) || Double.isInfinite(w)) {
+                problems.add(warning(shopId, path + ".weight", "invalid weight; 1 is used"));
+            } else {
+                out.put("weight", n);
+            }
+        } else if (weight != null) {
+            problems.add(warning(shopId, path + ".weight", "must be a number; 1 is used"));
+        }
+        if (trade.get("type") != null) out.put("type", trade.get("type"));
+        return out;
+    }
+
+    /**
+     * Validate "material:amount[:potion_type]" and add its canonical form to {@code into} if usable.
+     */
+    private void addItem(String shopId, String path, String text, List<String> into, List<Problem> problems) {
+        ItemSpec spec = ItemSpec.parse(text);
+        if (spec == null) {
+            problems.add(error(shopId, path, "empty item"));
+            return;
+        }
+        String written = text.trim();
+        switch (spec.getAmountStatus()) {
+            case INVALID -> problems.add(warning(shopId, path, "invalid amount in '" + written + "'; 1 is used"));
+            case BELOW_ONE -> problems.add(warning(shopId, path, "amount in '" + written + "' must be at least 1; 1 is used"));
+            case OK -> {}
+        }
+        String material = registry.material(spec);
+        if (material == null) {
+            problems.add(error(shopId, path, "unknown material '" + spec.getMaterial() + "'"));
+            return;
+        }
+        if (!registry.isItem(material)) {
+            problems.add(error(shopId, path, "'" + material + "' is a block, not an item; it cannot be traded"));
+            return;
+        }
+        int max = registry.maxStackSize(material);
+        int amount = spec.getAmount(max);
+        if (amount < spec.getAmount()) {
+            problems.add(warning(shopId, path, "amount in '" + written + "' is more than a stack of " + material
+                    + "; " + max + " is used"));
+        }
+        String potion = null;
+        if (spec.getPotion() != null) {
+            if (!ItemSpec.takesPotion(material)) {
+                problems.add(warning(shopId, path, "potion type '" + spec.getPotion() + "' is ignored on " + material));
+            } else {
+                potion = registry.potionType(spec.getPotion());
+                if (potion == null) {
+                    problems.add(warning(shopId, path, "unknown potion type '" + spec.getPotion() + "'"));
+                }
+            }
+        }
+        into.add(material + ":" + amount + (potion != null ? ":" + potion : ""));
+    }
+
+    private String validateEnchantments(String shopId, String path, String value, List<Problem> problems) {
+        List<String> out = new ArrayList<>();
+        for (ItemSpec.Enchant e : ItemSpec.parseEnchantments(value)) {
+            if (e.invalid()) {
+                problems.add(warning(shopId, path, "invalid level in '" + e.text() + "'; 1 is used"));
+            } else if (e.clamped()) {
+                problems.add(warning(shopId, path, "level of '" + e.text() + "' is clamped to "
+                        + ItemSpec.MIN_ENCHANT_LEVEL + ".." + ItemSpec.MAX_ENCHANT_LEVEL));
+            }
+            String key = registry.enchantment(e);
+            if (key == null) {
+                problems.add(warning(shopId, path, "unknown enchantment '" + e.name() + "'"));
+                continue;
+            }
+            out.add(key + ":" + e.level());
+        }
+        return String.join(",", out);
+    }
+
+    private static Problem error(String shop, String path, String message) {
+        return new Problem(Problem.Severity.ERROR, shop, path, message);
+    }
+
+    private static Problem warning(String shop, String path, String message) {
+        return new Problem(Problem.Severity.WARNING, shop, path, message);
+    }
+}